@@ -0,0 +1,52 @@
+// k6 load test for comparing the servlet and reactive runtimes.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e USERNAME=alice -e PASSWORD=... loadtest/auth-load.js
+//
+// Run it once against the default build and once against a -Preactive build
+// started with --spring.profiles.active=reactive, on the same node size and
+// database, then compare http_req_duration percentiles and http_reqs throughput.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERNAME = __ENV.USERNAME;
+const PASSWORD = __ENV.PASSWORD;
+
+export const options = {
+    scenarios: {
+        // Many mostly idle connections, like mobile clients polling
+        availability: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.AVAILABILITY_VUS || 2000),
+            duration: __ENV.DURATION || '2m',
+            exec: 'availability',
+        },
+        // BCrypt bound logins at a fixed arrival rate
+        login: {
+            executor: 'constant-arrival-rate',
+            rate: Number(__ENV.LOGIN_RATE || 50),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '2m',
+            preAllocatedVUs: 200,
+            exec: 'login',
+        },
+    },
+    thresholds: {
+        'http_req_duration{scenario:availability}': ['p(99)<500'],
+        'http_req_duration{scenario:login}': ['p(99)<2000'],
+    },
+};
+
+export function availability() {
+    const name = `probe${__VU}x${__ITER}`;
+    const res = http.get(`${BASE_URL}/api/auth/availability?username=${name}&email=${name}@example.com`);
+    // Raise app.availability.rate-limit.requests-per-minute when testing from one machine
+    check(res, { 'availability answered': (r) => r.status === 200 || r.status === 429 });
+}
+
+export function login() {
+    const res = http.post(`${BASE_URL}/api/auth/login`,
+        JSON.stringify({ username: USERNAME, password: PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'login ok': (r) => r.status === 200 });
+}
@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Builds the AOT + AppCDS JVM variant into target/cds.
+#
+# The training run starts the application context and exits once it is
+# refreshed, so the configured database must be reachable.
+#
+#   scripts/build-cds.sh
+#   java -XX:SharedArchiveFile=target/cds/auth-server.jsa -Dspring.aot.enabled=true \
+#        -cp "$(cat target/cds/classpath)" com.auth.server.AuthServerApplication
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+MAIN_CLASS=com.auth.server.AuthServerApplication
+
+mvn -B -q -Pcds -DskipTests package
+
+# CDS only archives classes loaded from plain jars, so unpack the Boot fat jar
+rm -rf target/cds
+mkdir -p target/cds/lib
+unzip -q target/auth-server-*.jar -d target/cds/exploded
+cp target/cds/exploded/BOOT-INF/lib/*.jar target/cds/lib/
+jar --create --file target/cds/auth-server.jar -C target/cds/exploded/BOOT-INF/classes .
+rm -rf target/cds/exploded
+
+CLASSPATH="target/cds/auth-server.jar:$(ls target/cds/lib/*.jar | tr '\n' ':')"
+echo "${CLASSPATH%:}" > target/cds/classpath
+
+# Training run: load everything startup touches, then dump the archive
+java -XX:ArchiveClassesAtExit=target/cds/auth-server.jsa \
+     -Dspring.aot.enabled=true \
+     -Dspring.context.exit=onRefresh \
+     -cp "$(cat target/cds/classpath)" "$MAIN_CLASS"
+
+echo "CDS archive written to target/cds/auth-server.jsa"
@@ -0,0 +1,114 @@
+#!/usr/bin/env bash
+# Compares sustained OTP insert/delete throughput on a plain heap otps table
+# against the daily range-partitioned layout, with one day of retention
+# (row DELETE vs partition detach + drop) running a third of the way in.
+#
+# Uses the standard libpq environment (PGHOST, PGDATABASE, ...) and needs psql
+# and pgbench on the PATH. Everything lives in the scratch schema otp_bench.
+#
+#   scripts/otp-partition-benchmark.sh [clients] [seconds] [rows-per-day]
+set -euo pipefail
+
+CLIENTS=${1:-16}
+DURATION=${2:-120}
+ROWS_PER_DAY=${3:-2000000}
+WORKDIR=$(mktemp -d)
+trap 'rm -rf "$WORKDIR"' EXIT
+
+echo "Loading $((ROWS_PER_DAY * 3)) rows of history into both tables..."
+psql -v ON_ERROR_STOP=1 -q <<SQL
+DROP SCHEMA IF EXISTS otp_bench CASCADE;
+CREATE SCHEMA otp_bench;
+SET search_path = otp_bench;
+CREATE SEQUENCE otps_seq CACHE 50;
+
+CREATE TABLE otps_heap (
+    id bigint PRIMARY KEY, otp varchar(255) NOT NULL, identifier varchar(255) NOT NULL,
+    type varchar(255) NOT NULL, purpose varchar(255) NOT NULL, expiry_time timestamp(6) NOT NULL,
+    used boolean NOT NULL, created_at timestamp(6) NOT NULL, used_at timestamp(6)
+);
+CREATE INDEX ON otps_heap (identifier, type, purpose);
+
+CREATE TABLE otps_part (LIKE otps_heap, PRIMARY KEY (id, created_at)) PARTITION BY RANGE (created_at);
+CREATE INDEX ON otps_part (identifier, type, purpose, created_at);
+CREATE TABLE otps_part_default PARTITION OF otps_part DEFAULT;
+DO \$\$
+DECLARE
+    day date;
+BEGIN
+    FOR day IN SELECT generate_series(current_date - 3, current_date + 1, interval '1 day')::date LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF otps_part FOR VALUES FROM (%L) TO (%L)',
+                       'otps_part_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+    END LOOP;
+END \$\$;
+
+INSERT INTO otps_heap
+SELECT nextval('otps_seq'), '123456', 'user' || (g % 1000000) || '@example.com', 'EMAIL', 'REGISTRATION',
+       ts + interval '5 minutes', true, ts, ts + interval '1 minute'
+FROM (SELECT g, current_date - 3 + g * (interval '3 days' / ($ROWS_PER_DAY * 3)) AS ts
+      FROM generate_series(1, $ROWS_PER_DAY * 3) g) history
+WHERE ts < localtimestamp;
+INSERT INTO otps_part SELECT * FROM otps_heap;
+VACUUM ANALYZE otps_heap;
+VACUUM ANALYZE otps_part;
+SQL
+
+# One transaction per generated OTP: replace the code for the identifier, then consume it.
+# The heap variant uses the queries as they were before partitioning (no created_at bound).
+cat > "$WORKDIR/heap.sql" <<'SQL'
+\set user random(1, 1000000)
+BEGIN;
+DELETE FROM otp_bench.otps_heap
+WHERE identifier = 'user' || :user || '@example.com' AND type = 'EMAIL' AND purpose = 'REGISTRATION';
+INSERT INTO otp_bench.otps_heap VALUES (nextval('otp_bench.otps_seq'), '654321', 'user' || :user || '@example.com',
+    'EMAIL', 'REGISTRATION', localtimestamp + interval '5 minutes', false, localtimestamp, NULL);
+UPDATE otp_bench.otps_heap SET used = true, used_at = localtimestamp
+WHERE identifier = 'user' || :user || '@example.com' AND otp = '654321' AND type = 'EMAIL'
+  AND purpose = 'REGISTRATION' AND used = false AND expiry_time > localtimestamp;
+END;
+SQL
+
+cat > "$WORKDIR/part.sql" <<'SQL'
+\set user random(1, 1000000)
+BEGIN;
+DELETE FROM otp_bench.otps_part
+WHERE identifier = 'user' || :user || '@example.com' AND type = 'EMAIL' AND purpose = 'REGISTRATION'
+  AND created_at > localtimestamp - interval '5 minutes';
+INSERT INTO otp_bench.otps_part VALUES (nextval('otp_bench.otps_seq'), '654321', 'user' || :user || '@example.com',
+    'EMAIL', 'REGISTRATION', localtimestamp + interval '5 minutes', false, localtimestamp, NULL);
+UPDATE otp_bench.otps_part SET used = true, used_at = localtimestamp
+WHERE identifier = 'user' || :user || '@example.com' AND otp = '654321' AND type = 'EMAIL'
+  AND purpose = 'REGISTRATION' AND used = false AND expiry_time > localtimestamp
+  AND created_at > localtimestamp - interval '5 minutes';
+END;
+SQL
+
+OLDEST_DAY=$(psql -Atc "SELECT to_char(current_date - 3, 'YYYYMMDD')")
+
+# Prints the pgbench summary and how long retention of the oldest day took
+run() {
+    local name=$1 script=$2 retention=$3 start
+    pgbench -n -c "$CLIENTS" -j "$CLIENTS" -T "$DURATION" -f "$script" > "$WORKDIR/$name.log" 2>&1 &
+    local pid=$!
+
+    sleep $((DURATION / 3))
+    start=$(date +%s%3N)
+    psql -v ON_ERROR_STOP=1 -q -c "$retention"
+    local retention_ms=$(($(date +%s%3N) - start))
+    wait "$pid"
+
+    echo "== $name"
+    grep -E "^(tps|latency average|number of transactions actually processed)" "$WORKDIR/$name.log"
+    echo "retention of one day: $retention_ms ms"
+}
+
+run heap "$WORKDIR/heap.sql" \
+    "DELETE FROM otp_bench.otps_heap WHERE expiry_time < current_date - 2"
+run partitioned "$WORKDIR/part.sql" \
+    "BEGIN; ALTER TABLE otp_bench.otps_part DETACH PARTITION otp_bench.otps_part_p$OLDEST_DAY;
+     DROP TABLE otp_bench.otps_part_p$OLDEST_DAY; COMMIT;"
+
+psql -q <<'SQL'
+SELECT relname, n_live_tup, n_dead_tup, pg_size_pretty(pg_total_relation_size(relid)) AS total_size
+FROM pg_stat_user_tables WHERE schemaname = 'otp_bench' ORDER BY relname;
+SQL
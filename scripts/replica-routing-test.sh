@@ -0,0 +1,142 @@
+#!/usr/bin/env bash
+# End-to-end check of read replica health: a Postgres primary and a streaming
+# standby in throwaway Docker containers, and the server routing reads to the
+# standby with a lag check every second.
+#
+# 1. With the standby streaming and caught up, it becomes eligible for reads.
+# 2. Its WAL receiver is stopped (primary_conninfo cleared). Nothing is left to
+#    replay, but the standby no longer hears from the primary: it must be dropped.
+# 3. Streaming is restored: it must become eligible again.
+# 4. Replay is paused and the primary writes: once the standby is further behind
+#    than max-lag-ms it must be dropped, and taken back after replay resumes.
+#
+# Needs docker, curl and a JDK on the PATH. To use instances of your own instead
+# of docker, set PRIMARY_PORT and REPLICA_PORT to a primary with an auth_db
+# database and a standby streaming from it on localhost; psql must be on the PATH.
+#
+#   scripts/replica-routing-test.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PORT=8095
+MAX_LAG_MS=2000
+PREFIX=auth-replica-test
+PASSWORD=Postgres@123
+LOCAL=${PRIMARY_PORT:+yes}
+declare -A DB_PORTS=([primary]=${PRIMARY_PORT:-5447} [replica]=${REPLICA_PORT:-5448})
+WORKDIR=$(mktemp -d)
+APP_PID=
+
+cleanup() {
+    [[ -n "$APP_PID" ]] && kill "$APP_PID" 2>/dev/null || true
+    if [[ -z "$LOCAL" ]]; then
+        docker rm -f "$PREFIX-primary" "$PREFIX-replica" >/dev/null 2>&1 || true
+        docker network rm "$PREFIX" >/dev/null 2>&1 || true
+    fi
+    rm -rf "$WORKDIR"
+}
+trap cleanup EXIT
+
+fail() {
+    echo "FAILED: $*" >&2
+    [[ -f "$WORKDIR/app.log" ]] && grep -E "Replica" "$WORKDIR/app.log" | tail -20 >&2
+    exit 1
+}
+
+psql_on() {
+    local db=$1
+    shift
+    if [[ -n "$LOCAL" ]]; then
+        PGPASSWORD=$PASSWORD psql -h localhost -p "${DB_PORTS[$db]}" -U postgres -d auth_db -qtA "$@"
+    else
+        docker exec -i "$PREFIX-$db" psql -U postgres -d auth_db -qtA "$@"
+    fi
+}
+
+# Waits until the server logs the given set of eligible replicas after the line count in $1
+expect_eligible() {
+    local since=$1 expected=$2 what=$3
+    for _ in $(seq 30); do
+        if tail -n +"$((since + 1))" "$WORKDIR/app.log" | grep -qF "Replicas eligible for reads: $expected"; then
+            echo "  $what: eligible $expected"
+            return
+        fi
+        sleep 1
+    done
+    fail "$what: expected eligible replicas $expected"
+}
+
+log_lines() {
+    wc -l <"$WORKDIR/app.log"
+}
+
+if [[ -z "$LOCAL" ]]; then
+    echo "Starting primary and standby..."
+    docker network create "$PREFIX" >/dev/null
+    docker run -d --name "$PREFIX-primary" --network "$PREFIX" -e POSTGRES_PASSWORD=$PASSWORD \
+        -e POSTGRES_DB=auth_db -p "${DB_PORTS[primary]}:5432" postgres:16 >/dev/null
+    until docker exec "$PREFIX-primary" pg_isready -U postgres -d auth_db >/dev/null 2>&1; do sleep 1; done
+    sleep 2
+    docker exec "$PREFIX-primary" bash -c \
+        'echo "host replication all all scram-sha-256" >>"$PGDATA/pg_hba.conf"'
+    psql_on primary -c "SELECT pg_reload_conf()" >/dev/null
+    # -R writes standby.signal and a primary_conninfo with the password
+    docker run -d --name "$PREFIX-replica" --network "$PREFIX" --user postgres \
+        -p "${DB_PORTS[replica]}:5432" postgres:16 bash -c \
+        "pg_basebackup -d 'host=$PREFIX-primary user=postgres password=$PASSWORD' \
+            -D /var/lib/postgresql/data -R -X stream && chmod 700 /var/lib/postgresql/data && exec postgres" \
+        >/dev/null
+    until docker exec "$PREFIX-replica" pg_isready -U postgres -d auth_db >/dev/null 2>&1; do sleep 1; done
+fi
+
+[[ "$(psql_on replica -c "SELECT pg_is_in_recovery()")" == t ]] || fail "the replica is not a standby"
+CONNINFO=$(psql_on replica -c "SHOW primary_conninfo")
+[[ -n "$CONNINFO" ]] || fail "the replica has no primary_conninfo"
+
+mvn -B -q -DskipTests package
+
+java -jar target/auth-server-*.jar \
+    --server.port=$PORT \
+    --spring.datasource.url="jdbc:postgresql://localhost:${DB_PORTS[primary]}/auth_db" \
+    --spring.datasource.password="$PASSWORD" \
+    --app.warm-up.enabled=false \
+    --app.datasource.replica-routing.enabled=true \
+    --app.datasource.max-lag-ms=$MAX_LAG_MS \
+    --app.datasource.lag-check-interval-ms=1000 \
+    --app.datasource.replicas[0].name=replica-1 \
+    --app.datasource.replicas[0].url="jdbc:postgresql://localhost:${DB_PORTS[replica]}/auth_db" \
+    --app.datasource.replicas[0].username=postgres \
+    --app.datasource.replicas[0].password="$PASSWORD" >"$WORKDIR/app.log" 2>&1 &
+APP_PID=$!
+for _ in $(seq 120); do
+    curl -sf "http://localhost:$PORT/actuator/health/readiness" >/dev/null && break
+    kill -0 "$APP_PID" 2>/dev/null || fail "server exited during startup"
+    sleep 1
+done
+
+echo "1. Standby streaming"
+expect_eligible 0 "[replica-1]" "streaming"
+
+echo "2. WAL receiver stopped"
+SINCE=$(log_lines)
+psql_on replica -c "ALTER SYSTEM SET primary_conninfo = ''" -c "SELECT pg_reload_conf()" >/dev/null
+expect_eligible "$SINCE" "[]" "disconnected"
+grep -q "Replica replica-1 is not streaming" "$WORKDIR/app.log" || fail "no warning for the disconnected replica"
+
+echo "3. Streaming restored"
+SINCE=$(log_lines)
+psql_on replica -c "ALTER SYSTEM SET primary_conninfo = '${CONNINFO//\'/\'\'}'" -c "SELECT pg_reload_conf()" >/dev/null
+expect_eligible "$SINCE" "[replica-1]" "reconnected"
+
+echo "4. Replay paused while the primary writes"
+SINCE=$(log_lines)
+psql_on replica -c "SELECT pg_wal_replay_pause()" >/dev/null
+psql_on primary -c "CREATE TABLE IF NOT EXISTS replica_probe (at timestamp)" \
+    -c "INSERT INTO replica_probe VALUES (now())" >/dev/null
+expect_eligible "$SINCE" "[]" "lagging"
+SINCE=$(log_lines)
+psql_on replica -c "SELECT pg_wal_replay_resume()" >/dev/null
+expect_eligible "$SINCE" "[replica-1]" "caught up"
+psql_on primary -c "DROP TABLE replica_probe" >/dev/null
+
+echo "OK"
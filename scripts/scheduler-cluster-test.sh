@@ -0,0 +1,153 @@
+#!/usr/bin/env bash
+# End-to-end check of cluster-wide scheduled jobs: two nodes share one
+# throwaway Docker Postgres and run the otp-partitions job every INTERVAL_MS.
+#
+# 1. With both nodes up, every run in the window is on exactly one node and
+#    consecutive runs are an interval apart: never two in the same interval,
+#    never a missed interval.
+# 2. The node holding the lease is killed with SIGKILL. The survivor must take
+#    over once the dead node's lease expires and keep the same spacing.
+#
+# Needs docker and a JDK on the PATH. To use a Postgres of your own instead of
+# docker, pass the JDBC URL of an empty database in DB_URL (and DB_USERNAME,
+# DB_PASSWORD if not postgres / Postgres@123).
+#
+#   scripts/scheduler-cluster-test.sh [intervals]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+INTERVALS=${1:-8}
+INTERVAL_MS=5000
+CONTAINER=auth-scheduler-test
+DB_PORT=5444
+DB_URL=${DB_URL:-}
+DB_USERNAME=${DB_USERNAME:-postgres}
+PASSWORD=${DB_PASSWORD:-Postgres@123}
+WORKDIR=$(mktemp -d)
+declare -A PORTS=([node-a]=8093 [node-b]=8094)
+declare -A PIDS=()
+
+cleanup() {
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null || true
+    done
+    [[ -n "$DB_URL" ]] || docker rm -f "$CONTAINER" >/dev/null 2>&1 || true
+    rm -rf "$WORKDIR"
+}
+trap cleanup EXIT
+
+fail() {
+    echo "FAILED: $*" >&2
+    for node in "${!PORTS[@]}"; do
+        [[ -f "$WORKDIR/$node.log" ]] && grep -h "Ran otp-partitions" "$WORKDIR/$node.log" >&2
+    done
+    exit 1
+}
+
+start_node() {
+    local node=$1
+    java -jar target/auth-server-*.jar \
+        --server.port="${PORTS[$node]}" \
+        --spring.datasource.url="$DB_URL" \
+        --spring.datasource.username="$DB_USERNAME" \
+        --spring.datasource.password="$PASSWORD" \
+        --app.scheduler.node-id="$node" \
+        --app.warm-up.enabled=false \
+        --otp.partitioning.interval-ms=$INTERVAL_MS >"$WORKDIR/$node.log" 2>&1 &
+    PIDS[$node]=$!
+}
+
+wait_for_node() {
+    local node=$1
+    for _ in $(seq 120); do
+        if curl -sf "http://localhost:${PORTS[$node]}/actuator/health/readiness" >/dev/null; then
+            return
+        fi
+        kill -0 "${PIDS[$node]}" 2>/dev/null || fail "$node exited during startup"
+        sleep 1
+    done
+    fail "$node did not start"
+}
+
+# "<epoch ms> <node>" for every run logged since the last snapshot_lines, in time order
+runs_since() {
+    local node
+    for node in "${!PORTS[@]}"; do
+        # A node without runs (e.g. the killed one) is not an error under pipefail
+        tail -n +"$(( ${START_LINES[$node]:-0} + 1 ))" "$WORKDIR/$node.log" | { grep "Ran otp-partitions" || true; } \
+            | while read -r timestamp _; do
+                echo "$(date -d "$timestamp" +%s%3N) $node"
+            done
+    done | sort -n
+}
+
+# Fails unless there are at least min_count runs, each at least the lease's lockAtLeastFor
+# and at most one and a half intervals after the previous one
+check_spacing() {
+    local phase=$1 min_count=$2 runs=$3
+    local min_gap_ms=$((INTERVAL_MS * 55 / 60 - 50)) max_gap_ms=$((INTERVAL_MS * 3 / 2)) count
+    count=$(wc -l <<<"$runs")
+    echo "$phase: $count runs"
+    awk 'NR == 1 { first = $1 } { print "  " $2 " at +" ($1 - first) " ms" }' <<<"$runs"
+    (( count >= min_count )) || fail "$phase: expected at least $min_count runs, got $count"
+    awk -v min=$min_gap_ms -v max="$max_gap_ms" -v phase="$phase" '
+        NR > 1 {
+            gap = $1 - previous
+            if (gap < min) { print phase ": runs " gap " ms apart, two in one interval"; bad = 1 }
+            if (gap > max) { print phase ": runs " gap " ms apart, an interval was missed"; bad = 1 }
+        }
+        { previous = $1 }
+        END { exit bad }' <<<"$runs" || fail "$phase: runs not spaced one interval apart"
+}
+
+snapshot_lines() {
+    declare -gA START_LINES=()
+    local node
+    for node in "${!PORTS[@]}"; do
+        START_LINES[$node]=$(wc -l <"$WORKDIR/$node.log")
+    done
+}
+
+if [[ -z "$DB_URL" ]]; then
+    echo "Starting Postgres..."
+    docker run -d --name "$CONTAINER" -e POSTGRES_PASSWORD=$PASSWORD -e POSTGRES_DB=auth_db \
+        -p "$DB_PORT:5432" postgres:16 >/dev/null
+    until docker exec "$CONTAINER" pg_isready -U postgres -d auth_db >/dev/null 2>&1; do sleep 1; done
+    DB_URL="jdbc:postgresql://localhost:$DB_PORT/auth_db"
+fi
+
+mvn -B -q -DskipTests package
+
+echo "Starting node-a and node-b"
+start_node node-a
+wait_for_node node-a
+start_node node-b
+wait_for_node node-b
+
+# Phase 1: both nodes alive
+snapshot_lines
+sleep $((INTERVALS * INTERVAL_MS / 1000))
+check_spacing "both nodes" $((INTERVALS - 1)) "$(runs_since)"
+
+# Phase 2: kill the current owner without letting it release anything. The lease row
+# names whoever ran last, and only the owner logs a run
+OWNER=$(runs_since | tail -1 | cut -d' ' -f2)
+[[ -n "${PORTS[$OWNER]:-}" ]] || fail "unexpected lease owner '$OWNER'"
+SURVIVOR=$([[ "$OWNER" == node-a ]] && echo node-b || echo node-a)
+echo "Killing $OWNER, $SURVIVOR should take over"
+snapshot_lines
+kill -9 "${PIDS[$OWNER]}"
+unset "PIDS[$OWNER]"
+sleep $((INTERVALS * INTERVAL_MS / 1000))
+
+RUNS=$(runs_since)
+[[ -n "$RUNS" ]] || fail "no run after $OWNER died"
+grep -q " $OWNER$" <<<"$RUNS" && fail "$OWNER ran after it was killed"
+# The first run on the survivor can wait for the dead node's lease (lockAtMostFor) plus one trigger
+FIRST=$(head -1 <<<"$RUNS" | cut -d' ' -f1)
+LAST_OWNER_RUN=$(date -d "$(grep "Ran otp-partitions" "$WORKDIR/$OWNER.log" | tail -1 | cut -d' ' -f1)" +%s%3N)
+(( FIRST - LAST_OWNER_RUN <= INTERVAL_MS * 59 / 60 + INTERVAL_MS + 500 )) \
+    || fail "$SURVIVOR took $((FIRST - LAST_OWNER_RUN)) ms to take over"
+check_spacing "$SURVIVOR alone" $((INTERVALS - 3)) "$RUNS"
+
+echo "OK"
@@ -0,0 +1,188 @@
+#!/usr/bin/env bash
+# End-to-end check of app.sharding on throwaway Docker Postgres containers:
+# a global database plus shards a, b and c.
+#
+# 1. Starts the server with shards a and b, bootstraps an admin and imports
+#    USERS verified users, then checks the distribution, logins by username
+#    and by email, and that an email already taken on another shard is refused.
+# 2. Restarts with shard c added, rebalances, waits for the moves to finish and
+#    repeats the checks; the rebuilt index must report no misplaced users.
+#
+# Needs docker, curl, jq and a JDK on the PATH.
+#
+#   scripts/sharding-local-test.sh [users]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+USERS=${1:-2000}
+PORT=8090
+BUCKETS=1024
+PREFIX=auth-shard-test
+PASSWORD=Postgres@123
+ADMIN_PASSWORD='Admin@12345'
+# BCrypt hash of ADMIN_PASSWORD
+ADMIN_HASH='$2a$10$oEOUe9gw5aLXc7vX/ySd1.fwcB71VTHTxCT/p.wE343PuXo.nL2Ee'
+WORKDIR=$(mktemp -d)
+APP_PID=
+
+declare -A DB_PORTS=([global]=5440 [shard-a]=5441 [shard-b]=5442 [shard-c]=5443)
+
+cleanup() {
+    [[ -n "$APP_PID" ]] && kill "$APP_PID" 2>/dev/null || true
+    for db in "${!DB_PORTS[@]}"; do
+        docker rm -f "$PREFIX-$db" >/dev/null 2>&1 || true
+    done
+    rm -rf "$WORKDIR"
+}
+trap cleanup EXIT
+
+fail() {
+    echo "FAILED: $*" >&2
+    [[ -f "$WORKDIR/app.log" ]] && tail -50 "$WORKDIR/app.log" >&2
+    exit 1
+}
+
+psql_on() {
+    local db=$1
+    shift
+    docker exec -i "$PREFIX-$db" psql -U postgres -d auth_db -v ON_ERROR_STOP=1 -qtA "$@"
+}
+
+start_app() {
+    local args=(--server.port=$PORT
+                --spring.datasource.url=jdbc:postgresql://localhost:${DB_PORTS[global]}/auth_db
+                --spring.datasource.password=$PASSWORD
+                --app.sharding.enabled=true
+                --app.sharding.buckets=$BUCKETS
+                --app.sharding.map-refresh-interval-ms=1000
+                --app.sharding.move-grace-ms=500)
+    local i=0
+    for shard in "$@"; do
+        args+=(--app.sharding.shards[$i].name=$shard
+               --app.sharding.shards[$i].url=jdbc:postgresql://localhost:${DB_PORTS[$shard]}/auth_db
+               --app.sharding.shards[$i].username=postgres
+               --app.sharding.shards[$i].password=$PASSWORD)
+        i=$((i + 1))
+    done
+
+    java -jar target/auth-server-*.jar "${args[@]}" >"$WORKDIR/app.log" 2>&1 &
+    APP_PID=$!
+    for _ in $(seq 120); do
+        if curl -sf "http://localhost:$PORT/api/auth/availability?username=probe" >/dev/null; then
+            return
+        fi
+        kill -0 "$APP_PID" 2>/dev/null || fail "server exited during startup"
+        sleep 1
+    done
+    fail "server did not start"
+}
+
+stop_app() {
+    kill "$APP_PID"
+    wait "$APP_PID" || true
+    APP_PID=
+}
+
+login() {
+    curl -s -H 'Content-Type: application/json' \
+        -d "{\"username\":\"$1\",\"password\":\"$2\"}" \
+        "http://localhost:$PORT/api/auth/login" | jq -r '.token // "null"' 2>/dev/null || echo null
+}
+
+admin() {
+    local method=$1 path=$2
+    shift 2
+    curl -sf -X "$method" -H "Authorization: Bearer $TOKEN" "$@" "http://localhost:$PORT/api/admin$path"
+}
+
+check_users() {
+    local user=user$((USERS / 2))
+    [[ "$(login "$user" 'User@12345')" != null ]] || fail "login by username for $user"
+    [[ "$(login "$user@example.com" 'User@12345')" != null ]] || fail "login by email for $user"
+    [[ "$(login user1 'Wrong@12345')" == null ]] || fail "login with a wrong password succeeded"
+
+    # Registration claims email and mobile number globally, whatever shard the username lands on
+    local response
+    response=$(curl -s -H 'Content-Type: application/json' \
+        -d "{\"firstName\":\"Dup\",\"lastName\":\"User\",\"username\":\"dup$RANDOM\",\"email\":\"user1@example.com\",\"password\":\"User@12345\",\"mobileNumber\":\"+19990000000\"}" \
+        "http://localhost:$PORT/api/auth/register")
+    [[ "$(jq -r .message <<<"$response")" == "Email already exists" ]] || fail "duplicate email was not refused: $response"
+}
+
+echo "Starting Postgres containers..."
+for db in "${!DB_PORTS[@]}"; do
+    docker run -d --name "$PREFIX-$db" -e POSTGRES_PASSWORD=$PASSWORD -e POSTGRES_DB=auth_db \
+        -p "${DB_PORTS[$db]}:5432" postgres:16 >/dev/null
+done
+for db in "${!DB_PORTS[@]}"; do
+    until docker exec "$PREFIX-$db" pg_isready -U postgres -d auth_db >/dev/null 2>&1; do sleep 1; done
+done
+
+mvn -B -q -DskipTests package
+
+echo "Phase 1: shards a and b"
+start_app shard-a shard-b
+
+# Nobody can call the admin endpoints yet, so insert the admin straight into its shard
+cat > "$WORKDIR/Bucket.java" <<'JAVA'
+public class Bucket {
+    public static void main(String[] args) {
+        java.util.zip.CRC32C crc = new java.util.zip.CRC32C();
+        crc.update(args[0].getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        System.out.println(crc.getValue() % Integer.parseInt(args[1]));
+    }
+}
+JAVA
+ADMIN_BUCKET=$(java "$WORKDIR/Bucket.java" admin $BUCKETS)
+ADMIN_SHARD=$(psql_on global -c "SELECT shard FROM user_shard_buckets WHERE bucket = $ADMIN_BUCKET")
+psql_on "$ADMIN_SHARD" <<SQL
+INSERT INTO users (id, first_name, last_name, username, email, password, mobile_number, email_verified,
+                   mobile_verified, enabled, account_non_locked, created_at, updated_at, roles)
+VALUES (nextval('users_seq'), 'Admin', 'User', 'admin', 'admin@example.com', '$ADMIN_HASH', '+10000000000',
+        true, true, true, true, now(), now(), 'ADMIN');
+SQL
+TOKEN=$(login admin "$ADMIN_PASSWORD")
+[[ "$TOKEN" != null ]] || fail "admin login"
+admin POST /shards/reindex >/dev/null
+
+echo "Importing $USERS users..."
+for i in $(seq "$USERS"); do
+    printf '{"firstName":"User","lastName":"%d","username":"user%d","email":"user%d@example.com","password":"User@12345","mobileNumber":"+1555%07d"}\n' \
+        "$i" "$i" "$i" "$i"
+done > "$WORKDIR/users.ndjson"
+SUMMARY=$(admin POST '/users/import?verified=true' -H 'Content-Type: application/x-ndjson' \
+    --data-binary "@$WORKDIR/users.ndjson" | tail -1)
+echo "$SUMMARY"
+[[ "$(jq .created <<<"$SUMMARY")" == "$USERS" ]] || fail "not every user was imported"
+
+admin GET /shards | jq -c '.[]'
+for shard in shard-a shard-b; do
+    [[ "$(admin GET /shards | jq ".[] | select(.name == \"$shard\") | .users")" -gt 0 ]] || fail "$shard got no users"
+done
+check_users
+stop_app
+
+echo "Phase 2: adding shard c and rebalancing"
+start_app shard-a shard-b shard-c
+TOKEN=$(login admin "$ADMIN_PASSWORD")
+admin POST /shards/rebalance | jq -r .message
+
+for _ in $(seq 300); do
+    STATUS=$(admin GET /shards)
+    if [[ "$(jq '[.[].movingBuckets] | add' <<<"$STATUS")" == 0 ]] \
+        && [[ "$(jq '.[] | select(.name == "shard-c") | .buckets' <<<"$STATUS")" -ge $((BUCKETS / 3)) ]]; then
+        break
+    fi
+    sleep 1
+done
+echo "$STATUS" | jq -c '.[]'
+[[ "$(jq '[.[].movingBuckets] | add' <<<"$STATUS")" == 0 ]] || fail "rebalance did not finish"
+[[ "$(jq '[.[].users] | add' <<<"$STATUS")" == $((USERS + 1)) ]] || fail "users were lost or duplicated"
+[[ "$(jq '.[] | select(.name == "shard-c") | .users' <<<"$STATUS")" -gt 0 ]] || fail "shard-c got no users"
+
+check_users
+REINDEX=$(admin POST /shards/reindex)
+echo "$REINDEX" | jq -c .data
+[[ "$(jq .data.misplaced <<<"$REINDEX")" == 0 ]] || fail "users left on the wrong shard"
+
+echo "OK"
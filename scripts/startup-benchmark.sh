@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+# Compares startup time and first-request latency of the plain jar, the
+# AOT + CDS JVM variant and the native image.
+#
+# Build the variants first (the database must be reachable for all of them):
+#   mvn -B -DskipTests package && cp target/auth-server-1.0.0.jar target/auth-server-plain.jar
+#   scripts/build-cds.sh
+#   mvn -B -Pnative -DskipTests native:compile
+#
+#   scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+PORT=${PORT:-8080}
+BASE_URL="http://localhost:$PORT"
+
+now_ms() {
+    date +%s%3N
+}
+
+# Prints "<ms until health is UP> <ms for the first login request>"
+measure() {
+    local start ready first pid
+    start=$(now_ms)
+    "$@" --server.port="$PORT" > /tmp/auth-server-bench.log 2>&1 &
+    pid=$!
+
+    until curl -sf "$BASE_URL/actuator/health/liveness" > /dev/null; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited, see /tmp/auth-server-bench.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    ready=$(now_ms)
+
+    # An unknown user still runs the full filter chain, controller and user lookup
+    curl -s -o /dev/null -H 'Content-Type: application/json' \
+         -d '{"username":"startup-benchmark","password":"not-a-password"}' "$BASE_URL/api/auth/login"
+    first=$(now_ms)
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$((ready - start)) $((first - ready))"
+}
+
+benchmark() {
+    local name=$1
+    shift
+    local total_startup=0 total_first=0 startup first
+    for _ in $(seq "$RUNS"); do
+        read -r startup first < <(measure "$@")
+        total_startup=$((total_startup + startup))
+        total_first=$((total_first + first))
+    done
+    printf "%-8s startup %6d ms   first request %5d ms   (mean of %d runs)\n" \
+        "$name" $((total_startup / RUNS)) $((total_first / RUNS)) "$RUNS"
+}
+
+if [[ -f target/auth-server-plain.jar ]]; then
+    benchmark jar java -jar target/auth-server-plain.jar
+fi
+if [[ -f target/cds/auth-server.jsa ]]; then
+    benchmark cds java -XX:SharedArchiveFile=target/cds/auth-server.jsa -Dspring.aot.enabled=true \
+        -cp "$(cat target/cds/classpath)" com.auth.server.AuthServerApplication
+fi
+if [[ -x target/auth-server ]]; then
+    benchmark native target/auth-server
+fi
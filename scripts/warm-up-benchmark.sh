@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+# Measures what app.warm-up buys a freshly started node: time until
+# /actuator/health/readiness is UP, and p50/p99 latency of the first requests
+# it serves, with the warm-up disabled and enabled.
+#
+# The configured database must be reachable. Build the jar first:
+#   mvn -B -DskipTests package
+#
+#   scripts/warm-up-benchmark.sh [runs] [requests]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-3}
+REQUESTS=${2:-200}
+PORT=${PORT:-8080}
+BASE_URL="http://localhost:$PORT"
+JAR=$(ls target/auth-server-*.jar | grep -v plain | head -1)
+SAMPLES=$(mktemp -d)
+trap 'rm -rf "$SAMPLES"' EXIT
+
+now_ms() {
+    date +%s%3N
+}
+
+# Appends the latency in ms of each of the first requests to $2 and prints
+# "<ms until ready> <warm-up ms logged by the server>"
+measure() {
+    local warm_up=$1 samples=$2 start ready pid
+    start=$(now_ms)
+    java -jar "$JAR" --server.port="$PORT" --app.warm-up.enabled="$warm_up" > /tmp/auth-server-warm-up.log 2>&1 &
+    pid=$!
+
+    until curl -sf "$BASE_URL/actuator/health/readiness" > /dev/null; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited, see /tmp/auth-server-warm-up.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    ready=$(now_ms)
+
+    # Alternate a rejected login (user lookup and BCrypt) and an introspection with a bad
+    # bearer token (JWT parsing in the authentication filter, then 403)
+    for i in $(seq "$REQUESTS"); do
+        if ((i % 2)); then
+            curl -s -o /dev/null -w '%{time_total}\n' -H 'Content-Type: application/json' \
+                 -d '{"username":"warm-up-benchmark","password":"not-a-password"}' "$BASE_URL/api/auth/login"
+        else
+            curl -s -o /dev/null -w '%{time_total}\n' -H 'Content-Type: application/json' \
+                 -H 'Authorization: Bearer not-a-token' -d '{"tokens":["not-a-token"]}' "$BASE_URL/api/auth/introspect"
+        fi
+    done | awk '{ printf "%.1f\n", $1 * 1000 }' >> "$samples"
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    local warm_up_ms
+    warm_up_ms=$(grep -o 'Warm-up finished in [0-9]*' /tmp/auth-server-warm-up.log | grep -o '[0-9]*$' || echo 0)
+    echo "$((ready - start)) $warm_up_ms"
+}
+
+# Nearest-rank percentile of the samples in $1
+percentile() {
+    sort -n "$1" | awk -v p="$2" '{ v[NR] = $1 } END { i = int((NR * p + 99) / 100); print v[i < 1 ? 1 : i] }'
+}
+
+benchmark() {
+    local name=$1 warm_up=$2 samples="$SAMPLES/$1" total_ready=0 total_warm_up=0 ready warm_up_ms
+    for _ in $(seq "$RUNS"); do
+        read -r ready warm_up_ms < <(measure "$warm_up" "$samples")
+        total_ready=$((total_ready + ready))
+        total_warm_up=$((total_warm_up + warm_up_ms))
+    done
+    printf "%-5s ready %6d ms   warm-up %5d ms   first %d requests: p50 %7s ms  p99 %7s ms   (%d runs)\n" \
+        "$name" $((total_ready / RUNS)) $((total_warm_up / RUNS)) "$REQUESTS" \
+        "$(percentile "$samples" 50)" "$(percentile "$samples" 99)" "$RUNS"
+}
+
+benchmark cold false
+benchmark warm true
@@ -0,0 +1,78 @@
+package com.auth.server.controller;
+
+import com.auth.server.dto.LoginRequest;
+import com.auth.server.dto.LoginResult;
+import com.auth.server.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rejecting a login in AuthController, excluding the DB lookup and
+ * BCrypt. "exception" is the previous contract (UserService throws, the
+ * controller wraps e.getMessage()), which the controller's catch block still
+ * implements; "result" returns the shared LoginResult constant. The stack is
+ * padded to a servlet-like depth because fillInStackTrace cost grows with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginFailureBenchmark {
+
+    @Param({"20", "120"})
+    private int stackDepth;
+
+    private AuthController throwingController;
+    private AuthController resultController;
+    private LoginRequest request;
+
+    @Setup
+    public void setup() {
+        request = new LoginRequest("john_doe", "wrong-password");
+
+        throwingController = new AuthController(new UserService(null, null, null, null, null, null, null, null, null) {
+            @Override
+            public LoginResult login(LoginRequest request) {
+                throw new RuntimeException("Invalid username or password");
+            }
+        }, null, null);
+
+        resultController = new AuthController(new UserService(null, null, null, null, null, null, null, null, null) {
+            @Override
+            public LoginResult login(LoginRequest request) {
+                return LoginResult.INVALID_CREDENTIALS;
+            }
+        }, null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> exception() {
+        return atDepth(throwingController, stackDepth);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> result() {
+        return atDepth(resultController, stackDepth);
+    }
+
+    private ResponseEntity<?> atDepth(AuthController controller, int depth) {
+        if (depth == 0) {
+            return controller.login(request);
+        }
+        return atDepth(controller, depth - 1);
+    }
+}
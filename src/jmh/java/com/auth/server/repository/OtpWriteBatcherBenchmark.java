@@ -0,0 +1,150 @@
+package com.auth.server.repository;
+
+import com.auth.server.entity.Otp;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP writes per second against a real Postgres: OtpWriteBatcher group commits
+ * vs the same DELETE + INSERT committed once per request, both on a 10
+ * connection pool (Hikari's default, as in the app). Each operation replaces
+ * the code of a random one of 100k identifiers and returns once committed.
+ * Run at increasing concurrency with -t, e.g. for t in 1 4 16 64 256.
+ *
+ * Needs an empty scratch database; everything lives in the otp_batch_bench
+ * schema, which is dropped first. Pass -Dbench.jdbc-url, -Dbench.username and
+ * -Dbench.password, defaulting to the local auth_db of application.yaml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class OtpWriteBatcherBenchmark {
+
+    private static final int IDENTIFIERS = 100_000;
+    private static final long EXPIRATION_MS = 300_000;
+
+    private static final String DELETE_SQL =
+            "DELETE FROM otps WHERE identifier = ? AND type = ? AND purpose = ? AND created_at > ?";
+    private static final String INSERT_SQL = """
+            INSERT INTO otps (id, otp, identifier, type, purpose, expiry_time, used, created_at, used_at)
+            VALUES (nextval('otps_seq'), ?, ?, ?, ?, ?, false, ?, NULL)
+            """;
+
+    private HikariDataSource dataSource;
+    private OtpWriteBatcher batcher;
+
+    @Setup
+    public void setup() throws SQLException {
+        String url = System.getProperty("bench.jdbc-url", "jdbc:postgresql://localhost:5432/auth_db");
+        try (HikariDataSource admin = dataSource(url)) {
+            try (Connection con = admin.getConnection(); Statement st = con.createStatement()) {
+                st.execute("DROP SCHEMA IF EXISTS otp_batch_bench CASCADE");
+                st.execute("CREATE SCHEMA otp_batch_bench");
+            }
+        }
+
+        dataSource = dataSource(url + (url.contains("?") ? "&" : "?") + "currentSchema=otp_batch_bench");
+        try (Connection con = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(con, new EncodedResource(
+                            new ClassPathResource("db/otps-partitioning.sql")), false, false,
+                    ScriptUtils.DEFAULT_COMMENT_PREFIX, "@@", ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER,
+                    ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+            try (Statement st = con.createStatement()) {
+                // As Hibernate creates it: increment matches SequenceAllocator.BLOCK_SIZE
+                st.execute("CREATE SEQUENCE IF NOT EXISTS otps_seq START WITH 1 INCREMENT BY "
+                        + SequenceAllocator.BLOCK_SIZE);
+            }
+        }
+
+        batcher = new OtpWriteBatcher(dataSource, null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(batcher, "otpExpirationMs", EXPIRATION_MS);
+        ReflectionTestUtils.setField(batcher, "maxBatchSize", 256);
+        ReflectionTestUtils.setField(batcher, "maxDelayMs", 2L);
+        ReflectionTestUtils.setField(batcher, "maxWaitMs", 30_000L);
+        batcher.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        batcher.stop();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void batched() {
+        batcher.replace(newOtp());
+    }
+
+    @Benchmark
+    public void perRequestCommit() throws SQLException {
+        Otp otp = newOtp();
+        try (Connection con = dataSource.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement delete = con.prepareStatement(DELETE_SQL);
+                 PreparedStatement insert = con.prepareStatement(INSERT_SQL)) {
+                delete.setString(1, otp.getIdentifier());
+                delete.setString(2, otp.getType().name());
+                delete.setString(3, otp.getPurpose().name());
+                delete.setTimestamp(4, Timestamp.valueOf(otp.getCreatedAt().minus(EXPIRATION_MS, ChronoUnit.MILLIS)));
+                delete.executeUpdate();
+
+                insert.setString(1, otp.getOtp());
+                insert.setString(2, otp.getIdentifier());
+                insert.setString(3, otp.getType().name());
+                insert.setString(4, otp.getPurpose().name());
+                insert.setTimestamp(5, Timestamp.valueOf(otp.getExpiryTime()));
+                insert.setTimestamp(6, Timestamp.valueOf(otp.getCreatedAt()));
+                insert.executeUpdate();
+            }
+            con.commit();
+        }
+    }
+
+    private static Otp newOtp() {
+        LocalDateTime now = LocalDateTime.now();
+        Otp otp = new Otp();
+        otp.setOtp("123456");
+        otp.setIdentifier("user" + ThreadLocalRandom.current().nextInt(IDENTIFIERS) + "@example.com");
+        otp.setType(Otp.OtpType.EMAIL);
+        otp.setPurpose(Otp.OtpPurpose.FORGOT_PASSWORD);
+        otp.setCreatedAt(now);
+        otp.setExpiryTime(now.plus(EXPIRATION_MS, ChronoUnit.MILLIS));
+        return otp;
+    }
+
+    private static HikariDataSource dataSource(String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(System.getProperty("bench.username", "postgres"));
+        dataSource.setPassword(System.getProperty("bench.password", "Postgres@123"));
+        return dataSource;
+    }
+}
@@ -0,0 +1,144 @@
+package com.auth.server.repository;
+
+import ch.qos.logback.classic.Level;
+import com.auth.server.dto.UserCredentials;
+import com.auth.server.entity.User;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-lookup cost of the authentication reads on an in-memory H2 database, so
+ * the numbers show ORM overhead rather than network or disk time. "entity"
+ * replays the previous code (load the full User, then save it back for login),
+ * "projection" the UserCredentials queries and the last_login_at UPDATE.
+ * Hibernate and the query plans take a while to settle, hence the long warmup.
+ * Run with -prof gc for B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserLookupBenchmark {
+
+    private static final int USERS = 1000;
+
+    private HikariDataSource dataSource;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private UserRepository userRepository;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private int next;
+
+    @Setup
+    public void setup() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(Level.WARN);
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:user-lookup;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan(User.class.getPackageName());
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        entityManagerFactoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+
+        userRepository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(UserRepository.class);
+
+        // Repository @Transactional is applied by Spring's proxy, which this factory skips
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setUsername("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BQxL1tW2n3i1wQ0YV8bH2nYb6c1e");
+            user.setMobileNumber("+1555" + String.format("%07d", i));
+            user.setEnabled(true);
+            users.add(user);
+        }
+        readWrite.executeWithoutResult(status -> userRepository.saveAll(users));
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManagerFactoryBean.destroy();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Object loginEntity() {
+        String identifier = nextEmail();
+        return readWrite.execute(status -> {
+            User user = userRepository.findByUsernameOrEmail(identifier, identifier).orElseThrow();
+            user.setLastLoginAt(LocalDateTime.now());
+            return userRepository.save(user);
+        });
+    }
+
+    @Benchmark
+    public Object loginProjection() {
+        String identifier = nextEmail();
+        return readWrite.execute(status -> {
+            UserCredentials user = userRepository.findCredentialsByUsernameOrEmail(identifier).orElseThrow();
+            userRepository.updateLastLoginAt(user.id(), LocalDateTime.now());
+            return user;
+        });
+    }
+
+    @Benchmark
+    public Object userDetailsEntity() {
+        String username = nextUsername();
+        return readOnly.execute(status -> userRepository.findByUsername(username).orElseThrow());
+    }
+
+    @Benchmark
+    public Object userDetailsProjection() {
+        String username = nextUsername();
+        return readOnly.execute(status -> userRepository.findCredentialsByUsername(username).orElseThrow());
+    }
+
+    private String nextUsername() {
+        next = (next + 1) % USERS;
+        return "user" + next;
+    }
+
+    private String nextEmail() {
+        return nextUsername() + "@example.com";
+    }
+}
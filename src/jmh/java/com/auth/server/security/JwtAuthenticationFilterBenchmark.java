@@ -0,0 +1,166 @@
+package com.auth.server.security;
+
+import com.auth.server.audit.AuditLog;
+import com.auth.server.util.JwtUtil;
+import com.auth.server.util.TokenMinter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request overhead of JwtAuthenticationFilter, excluding the user lookup
+ * (a stub returns a prebuilt UserDetails) and the rest of the chain.
+ * "previous" replays the filter as it was before the route-aware fast path:
+ * it runs on every route, validates with JJWT and parses the token twice,
+ * and builds WebAuthenticationDetails. Run with -prof gc for B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Param({"public", "valid", "expired", "forged", "malformed"})
+    private String route;
+
+    private JwtAuthenticationFilter filter;
+    private OncePerRequestFilter previousFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setup() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 86_400_000L);
+        jwtUtil.init();
+
+        UserDetails user = new User("john_doe", "{noop}unused", List.of());
+        UserDetailsService userDetailsService = username -> user;
+
+        // Never started, so recording is a no-op
+        AuditLog auditLog = new AuditLog(new SimpleMeterRegistry());
+
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, auditLog);
+        previousFilter = new PreviousFilter(jwtUtil, userDetailsService);
+
+        long now = System.currentTimeMillis() / 1000;
+        TokenMinter minter = new TokenMinter(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)));
+        String valid = minter.mint("john_doe", now, now + 86_400);
+
+        request = new MockHttpServletRequest("GET", "/api/auth/me");
+        switch (route) {
+            case "public" -> {
+                request.setMethod("POST");
+                request.setRequestURI("/api/auth/login");
+            }
+            case "valid" -> request.addHeader("Authorization", "Bearer " + valid);
+            case "expired" -> request.addHeader("Authorization", "Bearer " + minter.mint("john_doe", now - 7200, now - 3600));
+            case "forged" -> request.addHeader("Authorization", "Bearer " + valid.substring(0, valid.length() - 2) + "AA");
+            case "malformed" -> request.addHeader("Authorization", "Bearer not-a-jwt");
+            default -> throw new IllegalArgumentException(route);
+        }
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Object current() throws ServletException, IOException {
+        return run(filter);
+    }
+
+    @Benchmark
+    public Object previous() throws ServletException, IOException {
+        return run(previousFilter);
+    }
+
+    private Object run(OncePerRequestFilter target) throws ServletException, IOException {
+        target.doFilter(request, response, chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    /**
+     * The filter before this change, minus the stderr printing already removed earlier
+     */
+    private static class PreviousFilter extends OncePerRequestFilter {
+
+        private final JwtUtil jwtUtil;
+        private final UserDetailsService userDetailsService;
+
+        private PreviousFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+            this.jwtUtil = jwtUtil;
+            this.userDetailsService = userDetailsService;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            try {
+                String bearerToken = request.getHeader("Authorization");
+                String jwt = bearerToken != null && bearerToken.startsWith("Bearer ") ? bearerToken.substring(7) : null;
+
+                if (jwt != null && !jwt.isBlank() && isValid(jwt)) {
+                    String username = jwtUtil.parseClaims(jwt).getSubject();
+
+                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
+            } catch (Exception ex) {
+                logger.error("Could not set user authentication in security context", ex);
+            }
+
+            filterChain.doFilter(request, response);
+        }
+
+        private boolean isValid(String jwt) {
+            try {
+                Claims ignored = jwtUtil.parseClaims(jwt);
+                return true;
+            } catch (JwtException | IllegalArgumentException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.auth.server.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The availability filter against a HashSet of the same usernames. Setup
+ * prints the memory each needs per million users and the false-positive
+ * rate measured on names that were never added; the benchmarks measure
+ * lookups of such names, the signup form's common case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class BloomFilterBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param("1000000")
+    private int users;
+
+    @Param({"0.01", "0.001"})
+    private double falsePositiveRate;
+
+    private BloomFilter filter;
+    private Set<String> set;
+    private String[] absent;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Runtime runtime = Runtime.getRuntime();
+        long before = usedHeap(runtime);
+        set = new HashSet<>();
+        for (int i = 0; i < users; i++) {
+            set.add(username(i));
+        }
+        long setBytes = usedHeap(runtime) - before;
+
+        filter = new BloomFilter(users, falsePositiveRate);
+        for (int i = 0; i < users; i++) {
+            filter.add(username(i));
+        }
+
+        absent = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            absent[i] = username(users + i);
+        }
+        int falsePositives = 0;
+        int checked = 1_000_000;
+        for (int i = 0; i < checked; i++) {
+            if (filter.mightContain(username(users + i))) {
+                falsePositives++;
+            }
+        }
+
+        double perMillion = 1_000_000.0 / users;
+        System.out.printf("%n%d users, target FPR %.3f: filter %.2f MB per million users (%.1f bits per user),"
+                        + " HashSet ~%.1f MB per million users, measured FPR %.4f%n",
+                users, falsePositiveRate, filter.memoryBytes() * perMillion / (1 << 20),
+                filter.memoryBytes() * 8.0 / users, setBytes * perMillion / (1 << 20),
+                (double) falsePositives / checked);
+    }
+
+    @Benchmark
+    public boolean bloomFilterAbsent() {
+        return filter.mightContain(absent[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public boolean hashSetAbsent() {
+        return set.contains(absent[next++ & (PROBES - 1)]);
+    }
+
+    // Realistic lengths, distinct per index
+    private static String username(int i) {
+        return "user_" + Integer.toString(i, 36) + "_signup";
+    }
+
+    // Heap in use after a full collection; an estimate, good to a few percent at this size
+    private static long usedHeap(Runtime runtime) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
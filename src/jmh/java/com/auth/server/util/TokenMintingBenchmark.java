@@ -0,0 +1,85 @@
+package com.auth.server.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenMinter against the JJWT builder chain JwtUtil used before, both with
+ * and without a cached key. Run with -prof gc (the exec default) for B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenMintingBenchmark {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+    private static final long EXPIRATION_MS = 86_400_000L;
+
+    private SecretKey key;
+    private TokenMinter minter;
+
+    @Setup
+    public void setup() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        minter = new TokenMinter(key);
+
+        // The fast path is only worth having if JJWT cannot tell the difference
+        long now = 1_700_000_000_000L;
+        String expected = Jwts.builder()
+                .subject("john_doe")
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + EXPIRATION_MS))
+                .signWith(key)
+                .compact();
+        String actual = minter.mint("john_doe", now / 1000, (now + EXPIRATION_MS) / 1000);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("TokenMinter output differs from JJWT:\n" + expected + "\n" + actual);
+        }
+    }
+
+    @Benchmark
+    public String jjwtNewKeyPerToken() {
+        Date now = new Date();
+        return Jwts.builder()
+                .subject("john_doe")
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + EXPIRATION_MS))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    @Benchmark
+    public String jjwtCachedKey() {
+        Date now = new Date();
+        return Jwts.builder()
+                .subject("john_doe")
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + EXPIRATION_MS))
+                .signWith(key)
+                .compact();
+    }
+
+    @Benchmark
+    public String tokenMinter() {
+        long now = System.currentTimeMillis();
+        return minter.mint("john_doe", now / 1000, (now + EXPIRATION_MS) / 1000);
+    }
+}
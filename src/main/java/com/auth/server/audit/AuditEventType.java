@@ -0,0 +1,19 @@
+package com.auth.server.audit;
+
+public enum AuditEventType {
+    REGISTERED,
+    REGISTRATION_FAILED,
+    EMAIL_VERIFIED,
+    MOBILE_VERIFIED,
+    LOGIN_SUCCEEDED,
+    LOGIN_FAILED,
+    PASSWORD_CHANGED,
+    PASSWORD_CHANGE_FAILED,
+    PASSWORD_RESET_REQUESTED,
+    PASSWORD_RESET,
+    ROLES_CHANGED,
+    OTP_SENT,
+    OTP_VERIFIED,
+    OTP_REJECTED,
+    TOKEN_REJECTED
+}
@@ -0,0 +1,399 @@
+package com.auth.server.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of security events (logins, OTPs, password changes, rejected tokens).
+ *
+ * Request threads only claim a slot in a pre-allocated ring buffer; a single
+ * writer thread drains it as NDJSON lines into memory-mapped segment files
+ * that rotate at a fixed size. If the writer falls a whole ring behind, events
+ * are dropped and counted rather than ever blocking a request on disk I/O.
+ *
+ * Every event has a sequence number that continues across restarts, so a
+ * shipper can resume with {@link #read(long, int, OutputStream)} from the last
+ * sequence it saw.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    // Keeps every encoded line well inside the writer's scratch buffer
+    private static final int MAX_FIELD_CHARS = 256;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.dir:audit-log}")
+    private String dir;
+
+    @Value("${app.audit.ring-size:65536}")
+    private int ringSize;
+
+    @Value("${app.audit.segment-size-mb:32}")
+    private int segmentSizeMb;
+
+    @Value("${app.audit.max-segments:32}")
+    private int maxSegments;
+
+    @Value("${app.audit.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private AuditRingBuffer ring;
+    private Path directory;
+    private Thread writer;
+    private volatile boolean running;
+    private Counter dropped;
+
+    private volatile AuditSegment active;
+
+    // Sequence of the next event to be written; persistent across restarts
+    private volatile long nextSequence;
+
+    // Writer thread state
+    private long ringSequence;
+    private final byte[] scratch = new byte[8192];
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        directory = Path.of(dir);
+        Files.createDirectories(directory);
+
+        // Continue numbering after the last complete event of the previous run
+        List<Long> segments = segmentSequences();
+        if (!segments.isEmpty()) {
+            long last = segments.get(segments.size() - 1);
+            nextSequence = last + AuditSegment.recover(directory.resolve(AuditSegment.fileName(last)));
+        }
+        active = AuditSegment.create(directory, nextSequence, segmentSizeMb * 1024 * 1024);
+
+        ring = new AuditRingBuffer(ringSize);
+        dropped = Counter.builder("audit.events.dropped")
+                .description("Audit events rejected because the ring buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("audit.ring.backlog", ring, AuditRingBuffer::backlog)
+                .description("Audit events waiting for the writer thread")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::runWriter, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Audit log at {} continuing from sequence {}", directory.toAbsolutePath(), nextSequence);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            writer.join(5000);
+        }
+    }
+
+    /**
+     * Record an event for the current HTTP request. Never blocks
+     */
+    public void record(AuditEventType type, String subject, String detail) {
+        record(type, subject, currentClientIp(), detail);
+    }
+
+    /**
+     * Record an event that only happens if the current transaction commits,
+     * such as a password change. Outside a transaction it is recorded at once.
+     */
+    public void recordAfterCommit(AuditEventType type, String subject, String detail) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(type, subject, detail);
+            return;
+        }
+        String clientIp = currentClientIp();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(type, subject, clientIp, detail);
+            }
+        });
+    }
+
+    public void record(AuditEventType type, String subject, String clientIp, String detail) {
+        if (ring != null && !ring.offer(type, System.currentTimeMillis(), subject, clientIp, detail)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Copy up to limit events, starting at fromSequence (or the oldest retained
+     * event), to out as NDJSON. Returns the sequence to resume from.
+     */
+    public long read(long fromSequence, int limit, OutputStream out) throws IOException {
+        AuditSegment current = active;
+        if (current == null) {
+            return fromSequence;
+        }
+        int currentCommitted = current.committed();
+
+        List<Long> segments = segmentSequences().stream()
+                .filter(first -> first <= current.firstSequence())
+                .toList();
+        if (segments.isEmpty()) {
+            return fromSequence;
+        }
+        int start = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i) <= fromSequence) {
+                start = i;
+            }
+        }
+
+        long sequence = Math.max(fromSequence, segments.get(start));
+        long remaining = limit;
+        for (int i = start; i < segments.size() && remaining > 0; i++) {
+            long first = segments.get(i);
+            sequence = Math.max(sequence, first);
+            long maxBytes = first == current.firstSequence() ? currentCommitted : Long.MAX_VALUE;
+            long copied = copyLines(directory.resolve(AuditSegment.fileName(first)), first, maxBytes,
+                    sequence, remaining, out);
+            sequence += copied;
+            remaining -= copied;
+        }
+        return sequence;
+    }
+
+    /**
+     * Copy the most recent events, oldest first. Returns the sequence to resume from
+     */
+    public long tail(int limit, OutputStream out) throws IOException {
+        return read(Math.max(0, nextSequence - limit), limit, out);
+    }
+
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    private void runWriter() {
+        long lastForce = System.currentTimeMillis();
+        boolean dirty = false;
+        int idleSpins = 0;
+
+        while (true) {
+            AuditRingBuffer.Slot slot = ring.poll(ringSequence);
+            if (slot != null) {
+                try {
+                    write(slot);
+                    dirty = true;
+                } catch (Exception e) {
+                    log.error("Failed to write audit event {}", slot.type, e);
+                }
+                ring.release(ringSequence++);
+                idleSpins = 0;
+                continue;
+            }
+
+            if (!running) {
+                break;
+            }
+
+            long now = System.currentTimeMillis();
+            if (dirty && now - lastForce >= flushIntervalMs) {
+                active.force();
+                dirty = false;
+                lastForce = now;
+            }
+            // Back off from 50 us to 1 ms while idle; producers never have to wake the writer
+            LockSupport.parkNanos(idleSpins++ < 100 ? 50_000 : 1_000_000);
+        }
+
+        try {
+            active.close();
+        } catch (IOException e) {
+            log.error("Failed to close audit segment {}", active.path(), e);
+        }
+    }
+
+    private void write(AuditRingBuffer.Slot slot) throws IOException {
+        long sequence = nextSequence;
+        int length = encode(sequence, slot);
+        if (!active.append(scratch, length)) {
+            rotate(sequence);
+            active.append(scratch, length);
+        }
+        nextSequence = sequence + 1;
+    }
+
+    private void rotate(long firstSequence) throws IOException {
+        AuditSegment previous = active;
+        active = AuditSegment.create(directory, firstSequence, segmentSizeMb * 1024 * 1024);
+        previous.close();
+
+        List<Long> segments = segmentSequences();
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(directory.resolve(AuditSegment.fileName(segments.get(i))));
+        }
+    }
+
+    // {"seq":1,"ts":"...","type":"LOGIN_FAILED","subject":"...","ip":"...","detail":"..."}
+    private int encode(long sequence, AuditRingBuffer.Slot slot) {
+        int pos = putAscii(0, "{\"seq\":");
+        pos = putAscii(pos, Long.toString(sequence));
+        pos = putAscii(pos, ",\"ts\":\"");
+        pos = putAscii(pos, Instant.ofEpochMilli(slot.timestamp).toString());
+        pos = putAscii(pos, "\",\"type\":\"");
+        pos = putAscii(pos, slot.type.name());
+        pos = putAscii(pos, "\",\"subject\":");
+        pos = putString(pos, slot.subject);
+        pos = putAscii(pos, ",\"ip\":");
+        pos = putString(pos, slot.clientIp);
+        pos = putAscii(pos, ",\"detail\":");
+        pos = putString(pos, slot.detail);
+        scratch[pos++] = '}';
+        scratch[pos++] = '\n';
+        return pos;
+    }
+
+    private int putAscii(int pos, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            scratch[pos++] = (byte) value.charAt(i);
+        }
+        return pos;
+    }
+
+    // JSON string, UTF-8 encoded and truncated to MAX_FIELD_CHARS
+    private int putString(int pos, String value) {
+        if (value == null) {
+            return putAscii(pos, "null");
+        }
+
+        scratch[pos++] = '"';
+        int length = Math.min(value.length(), MAX_FIELD_CHARS);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                scratch[pos++] = '\\';
+                scratch[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                scratch[pos++] = '\\';
+                scratch[pos++] = 'u';
+                scratch[pos++] = '0';
+                scratch[pos++] = '0';
+                scratch[pos++] = HEX[c >> 4];
+                scratch[pos++] = HEX[c & 0xf];
+            } else if (c < 0x80) {
+                scratch[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                scratch[pos++] = (byte) (0xc0 | c >> 6);
+                scratch[pos++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                scratch[pos++] = (byte) (0xf0 | codePoint >> 18);
+                scratch[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                scratch[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                scratch[pos++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                scratch[pos++] = '?';
+            } else {
+                scratch[pos++] = (byte) (0xe0 | c >> 12);
+                scratch[pos++] = (byte) (0x80 | c >> 6 & 0x3f);
+                scratch[pos++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        scratch[pos++] = '"';
+        return pos;
+    }
+
+    // Lines are numbered consecutively from the segment's first sequence
+    private long copyLines(Path path, long firstSequence, long maxBytes, long fromSequence, long limit,
+                           OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long end = Math.min(channel.size(), maxBytes);
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+            byte[] bytes = chunk.array();
+            long position = 0;
+            long sequence = firstSequence;
+            long copied = 0;
+
+            while (position < end && copied < limit) {
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity(), end - position));
+                int read = channel.read(chunk, position);
+                if (read <= 0) {
+                    break;
+                }
+
+                int lineStart = 0;
+                for (int i = 0; i < read && copied < limit; i++) {
+                    if (bytes[i] == '\n') {
+                        if (sequence >= fromSequence) {
+                            out.write(bytes, lineStart, i + 1 - lineStart);
+                            copied++;
+                        }
+                        sequence++;
+                        lineStart = i + 1;
+                    }
+                }
+                if (lineStart == 0) {
+                    // No complete line left (zero-filled tail of an unclosed segment)
+                    break;
+                }
+                // A line cut off at the end of the chunk is read again with the next one
+                position += lineStart;
+            }
+            return copied;
+        } catch (NoSuchFileException e) {
+            // Deleted by retention while we were reading
+            return 0;
+        }
+    }
+
+    private List<Long> segmentSequences() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(AuditSegment::firstSequence)
+                    .filter(first -> first >= 0)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String currentClientIp() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,86 @@
+package com.auth.server.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer, single-consumer ring of pre-allocated event slots.
+ * Producers claim a sequence with a CAS, fill the slot in place and publish it
+ * by writing the sequence into the slot; they never lock, allocate or wait.
+ * When the consumer falls a whole ring behind, new events are rejected rather
+ * than blocking the request thread.
+ */
+class AuditRingBuffer {
+
+    private final Slot[] slots;
+    private final int mask;
+
+    // Next sequence a producer will claim
+    private final AtomicLong claimed = new AtomicLong();
+
+    // Every sequence below this has been consumed and its slot may be reused
+    private volatile long consumed;
+
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Returns false, without blocking, if the ring is full
+     */
+    boolean offer(AuditEventType type, long timestamp, String subject, String clientIp, String detail) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = type;
+        slot.timestamp = timestamp;
+        slot.subject = subject;
+        slot.clientIp = clientIp;
+        slot.detail = detail;
+        // Volatile write publishes the fields above to the consumer
+        slot.sequence = sequence;
+        return true;
+    }
+
+    /**
+     * The slot for the given sequence if it has been published, otherwise null. Consumer only
+     */
+    Slot poll(long sequence) {
+        Slot slot = slots[(int) sequence & mask];
+        return slot.sequence == sequence ? slot : null;
+    }
+
+    /**
+     * Hand the slot for the given sequence back to producers. Consumer only
+     */
+    void release(long sequence) {
+        Slot slot = slots[(int) sequence & mask];
+        slot.subject = null;
+        slot.clientIp = null;
+        slot.detail = null;
+        consumed = sequence + 1;
+    }
+
+    long backlog() {
+        return claimed.get() - consumed;
+    }
+
+    static class Slot {
+        AuditEventType type;
+        long timestamp;
+        String subject;
+        String clientIp;
+        String detail;
+        volatile long sequence = -1;
+    }
+}
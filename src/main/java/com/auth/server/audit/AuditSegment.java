@@ -0,0 +1,133 @@
+package com.auth.server.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One memory-mapped audit log file, named after the sequence of its first event.
+ * The file is mapped at its full size up front so appends are plain memory
+ * copies; close() trims it to the bytes actually written.
+ *
+ * Only the writer thread appends. Readers may read up to {@link #committed()}.
+ */
+class AuditSegment {
+
+    static final String PREFIX = "audit-";
+    static final String SUFFIX = ".log";
+
+    private final Path path;
+    private final long firstSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    // Bytes of complete lines, published for readers
+    private volatile int committed;
+
+    private AuditSegment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static AuditSegment create(Path directory, long firstSequence, int size) throws IOException {
+        Path path = directory.resolve(fileName(firstSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new AuditSegment(path, firstSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    /**
+     * Trim a segment left behind by a previous run to its last complete line
+     * and return the number of events it holds
+     */
+    static long recover(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+            long position = 0;
+            long validLength = 0;
+            long lines = 0;
+
+            // The unwritten tail of a segment that was never closed is zero filled
+            scan:
+            while (true) {
+                chunk.clear();
+                int read = channel.read(chunk, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    byte b = chunk.get(i);
+                    if (b == 0) {
+                        break scan;
+                    }
+                    if (b == '\n') {
+                        lines++;
+                        validLength = position + i + 1;
+                    }
+                }
+                position += read;
+            }
+
+            channel.truncate(validLength);
+            return lines;
+        }
+    }
+
+    /**
+     * Append one complete line. Returns false if the segment is full
+     */
+    boolean append(byte[] line, int length) {
+        if (buffer.remaining() < length) {
+            return false;
+        }
+        buffer.put(line, 0, length);
+        committed = buffer.position();
+        return true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        buffer.force();
+        channel.truncate(committed);
+        channel.close();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long firstSequence() {
+        return firstSequence;
+    }
+
+    int committed() {
+        return committed;
+    }
+
+    static String fileName(long firstSequence) {
+        return PREFIX + String.format("%020d", firstSequence) + SUFFIX;
+    }
+
+    /**
+     * First sequence encoded in a segment file name, or -1 if it is not a segment
+     */
+    static long firstSequence(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.auth.server.config;
+
+import org.springframework.core.Ordered;
+
+/**
+ * Order of the servlet filters registered by this application, outermost
+ * first. All of them run ahead of Spring Security's filter chain (order -100).
+ */
+public final class FilterOrders {
+
+    // Outermost, so the request total covers every other filter
+    public static final int SERVER_TIMING = Ordered.HIGHEST_PRECEDENCE;
+
+    public static final int REPLICA_ROUTING = Ordered.HIGHEST_PRECEDENCE + 1;
+
+    // Rejected requests never reach JWT parsing or BCrypt
+    public static final int LOAD_SHEDDING = Ordered.HIGHEST_PRECEDENCE + 2;
+
+    private FilterOrders() {
+    }
+}
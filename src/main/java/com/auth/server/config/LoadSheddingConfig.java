@@ -0,0 +1,31 @@
+package com.auth.server.config;
+
+import com.auth.server.security.LoadSheddingFilter;
+import com.auth.server.security.LoadSheddingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Registers the load-shedding filter ahead of Spring Security, so rejected
+ * requests never reach JWT parsing or BCrypt
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.load-shedding.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(LoadSheddingProperties.class)
+public class LoadSheddingConfig {
+
+    @Bean
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(LoadSheddingProperties properties,
+                                                                         MeterRegistry meterRegistry) {
+        FilterRegistrationBean<LoadSheddingFilter> registration =
+                new FilterRegistrationBean<>(new LoadSheddingFilter(properties, meterRegistry));
+        registration.setOrder(FilterOrders.LOAD_SHEDDING);
+        return registration;
+    }
+}
@@ -0,0 +1,81 @@
+package com.auth.server.config;
+
+import com.auth.server.dto.ApiResponse;
+import com.auth.server.dto.AuthResponse;
+import com.auth.server.dto.ImportRowResult;
+import com.auth.server.dto.ReadOnlyApiResponse;
+import com.auth.server.dto.RegistrationRequest;
+import com.auth.server.dto.UserCredentials;
+import com.auth.server.dto.UserExportRecord;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Reachability metadata for the native image build (-Pnative) that Spring AOT
+ * cannot infer: classes JJWT and Twilio load by name, and DTOs serialized
+ * outside of controller signatures. Entities and controller DTOs are covered by AOT.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    // Implementation classes io.jsonwebtoken.Jwts/Keys instantiate reflectively
+    private static final List<String> JJWT_CLASSES = List.of(
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer"
+    );
+
+    // Twilio maps API responses with Jackson
+    private static final List<String> TWILIO_CLASSES = List.of(
+            "com.twilio.rest.api.v2010.account.Message",
+            "com.twilio.type.PhoneNumber"
+    );
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String className : JJWT_CLASSES) {
+            hints.reflection().registerType(TypeReference.of(className),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+        // spring.sql.init scripts (otps partitioning)
+        hints.resources().registerPattern("db/*.sql");
+
+        BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+        for (String className : TWILIO_CLASSES) {
+            try {
+                bindingHints.registerReflectionHints(hints.reflection(), Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Twilio class not found: " + className, e);
+            }
+        }
+
+        // Instantiated by Hibernate from JPQL constructor expressions
+        hints.reflection().registerType(UserCredentials.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+        // Written with ObjectMapper directly by the import/export streams, or nested in ApiResponse
+        bindingHints.registerReflectionHints(hints.reflection(),
+                ApiResponse.class,
+                ReadOnlyApiResponse.class,
+                AuthResponse.class,
+                ImportRowResult.class,
+                RegistrationRequest.class,
+                UserExportRecord.class);
+    }
+}
@@ -0,0 +1,103 @@
+package com.auth.server.config;
+
+import com.auth.server.datasource.ReplicaProperties;
+import com.auth.server.datasource.ReplicaRoutingDataSource;
+import com.auth.server.datasource.ReplicaRoutingFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to replicas listed under app.datasource.replicas.
+ * spring.datasource stays the primary and receives every read-write transaction.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica-routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties primaryProperties,
+                                                             ReplicaProperties replicaProperties,
+                                                             Environment environment) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        bindHikari(binder, primary);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaProperties.getReplicas().size(); i++) {
+            ReplicaProperties.Replica replica = replicaProperties.getReplicas().get(i);
+            String name = replica.getName() != null ? replica.getName() : "replica-" + i;
+
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(primaryProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            bindHikari(binder, dataSource);
+            dataSource.setPoolName(name);
+            dataSource.setReadOnly(true);
+            replicas.put(name, dataSource);
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas, replicaProperties.getMaxLagMs());
+    }
+
+    // Pool settings under spring.datasource.hikari apply to every pool, as they would to the auto-configured one
+    static void bindHikari(Binder binder, HikariDataSource dataSource) {
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        // Defer connection lookup until the transaction's read-only flag is set
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReplicaRoutingFilter> replicaRoutingFilter() {
+        FilterRegistrationBean<ReplicaRoutingFilter> registration =
+                new FilterRegistrationBean<>(new ReplicaRoutingFilter());
+        registration.setOrder(FilterOrders.REPLICA_ROUTING);
+        return registration;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReplicaLagMonitor(replicaRoutingDataSource);
+    }
+
+    public static class ReplicaLagMonitor {
+
+        private final ReplicaRoutingDataSource replicaRoutingDataSource;
+
+        public ReplicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource) {
+            this.replicaRoutingDataSource = replicaRoutingDataSource;
+        }
+
+        @Scheduled(fixedDelayString = "${app.datasource.lag-check-interval-ms:5000}")
+        public void refresh() {
+            replicaRoutingDataSource.refreshReplicaLag();
+        }
+    }
+}
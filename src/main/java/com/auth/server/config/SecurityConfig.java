@@ -2,9 +2,11 @@ package com.auth.server.config;
 
 import com.auth.server.security.CustomUserDetailsService;
 import com.auth.server.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -26,11 +28,30 @@ import java.util.Arrays;
 import java.util.List;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
 @EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    // Endpoints reachable without a JWT (shared with the reactive runtime)
+    public static final String[] PUBLIC_ENDPOINTS = {
+            "/api/auth/register",
+            "/api/auth/login",
+            "/api/auth/verify-email",
+            "/api/auth/verify-mobile",
+            "/api/auth/resend-otp",
+            "/api/auth/forgot-password",
+            "/api/auth/reset-password",
+            "/api/auth/availability",
+            // Probes only; component details (breakers, database) need ROLE_ADMIN on /actuator/health
+            "/actuator/health/liveness",
+            "/actuator/health/readiness"
+    };
+
+    // Token introspection is for registered gateways only (RFC 7662 section 2.1)
+    public static final String INTROSPECTION_ENDPOINT = "/api/auth/introspect";
+
     private final CustomUserDetailsService userDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -40,15 +61,12 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(
-                                "/api/auth/register",
-                                "/api/auth/login",
-                                "/api/auth/verify-email",
-                                "/api/auth/verify-mobile",
-                                "/api/auth/resend-otp",
-                                "/api/auth/forgot-password",
-                                "/api/auth/reset-password"
-                        ).permitAll()
+                        // Streamed responses (import, export) finish on an async dispatch of a request
+                        // that was already authorized; the JWT filter does not run again for it
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(PUBLIC_ENDPOINTS).permitAll()
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers(INTROSPECTION_ENDPOINT).hasAnyRole("INTROSPECTION", "ADMIN")
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -80,6 +98,12 @@ public class SecurityConfig {
 
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", corsConfiguration());
+        return source;
+    }
+
+    public static CorsConfiguration corsConfiguration() {
         CorsConfiguration configuration = new CorsConfiguration();
         // Allow frontend origins - add your frontend URLs here
         configuration.setAllowedOrigins(Arrays.asList(
@@ -93,9 +117,6 @@ public class SecurityConfig {
         configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
-
-        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-        source.registerCorsConfiguration("/**", configuration);
-        return source;
+        return configuration;
     }
 }
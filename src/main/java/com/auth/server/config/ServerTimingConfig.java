@@ -0,0 +1,37 @@
+package com.auth.server.config;
+
+import com.auth.server.timing.RepositoryTimingPostProcessor;
+import com.auth.server.timing.ServerTimingFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Slow request logs, with a per-phase breakdown for sampled requests and an
+ * optional Server-Timing header
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.timing.enabled", havingValue = "true", matchIfMissing = true)
+public class ServerTimingConfig {
+
+    // Static: post-processors are created before the rest of the configuration
+    @Bean
+    public static RepositoryTimingPostProcessor repositoryTimingPostProcessor() {
+        return new RepositoryTimingPostProcessor();
+    }
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${app.timing.sample-rate:0.0}") double sampleRate,
+            @Value("${app.timing.header:false}") boolean header,
+            @Value("${app.timing.slow-request-ms:1000}") long slowRequestMs) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(sampleRate, header, slowRequestMs));
+        registration.setOrder(FilterOrders.SERVER_TIMING);
+        return registration;
+    }
+}
@@ -0,0 +1,101 @@
+package com.auth.server.config;
+
+import com.auth.server.sharding.ShardIndexRepository;
+import com.auth.server.sharding.ShardMap;
+import com.auth.server.sharding.ShardRoutingDataSource;
+import com.auth.server.sharding.ShardSchema;
+import com.auth.server.sharding.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Spreads users over the databases listed under app.sharding.shards by a hash
+ * of the username. spring.datasource becomes the global database: it holds the
+ * shard map, the email / mobile number index and the scheduler leases.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties globalProperties,
+                                                         ShardingProperties shardingProperties,
+                                                         Environment environment,
+                                                         @Value("${app.datasource.replica-routing.enabled:false}") boolean replicaRouting) {
+        if (replicaRouting) {
+            throw new IllegalStateException("app.sharding and app.datasource.replica-routing cannot be enabled together");
+        }
+        if (shardingProperties.getShards().isEmpty()) {
+            throw new IllegalStateException("app.sharding.enabled requires at least one entry in app.sharding.shards");
+        }
+
+        // Pool settings under spring.datasource.hikari apply to the global and every shard pool
+        Binder binder = Binder.get(environment);
+        HikariDataSource global = globalProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(global));
+
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        for (ShardingProperties.Shard shard : shardingProperties.getShards()) {
+            if (shard.getName() == null || shard.getName().isBlank()) {
+                throw new IllegalStateException("Every entry in app.sharding.shards needs a name; it is stored in the shard map");
+            }
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(globalProperties.determineDriverClassName())
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setPoolName(shard.getName());
+            shards.put(shard.getName(), dataSource);
+        }
+
+        return new ShardRoutingDataSource(global, shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        // Defer connection lookup until the caller has selected a shard
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public ShardMap shardMap(ShardRoutingDataSource shardRoutingDataSource, ShardingProperties shardingProperties) {
+        ShardSchema.createGlobalTables(shardRoutingDataSource.getGlobal());
+
+        ShardMap shardMap = new ShardMap(shardRoutingDataSource, shardingProperties.getBuckets(),
+                shardingProperties.getMapRefreshIntervalMs());
+        Map<String, Integer> shardIds = shardMap.initialize();
+        for (String shard : shardRoutingDataSource.getShardNames()) {
+            ShardSchema.createShardTables(shardRoutingDataSource.getShard(shard), shardIds.get(shard));
+        }
+        return shardMap;
+    }
+
+    @Bean
+    public ShardIndexRepository shardIndexRepository(ShardRoutingDataSource shardRoutingDataSource) {
+        return new ShardIndexRepository(shardRoutingDataSource.getGlobal());
+    }
+}
@@ -0,0 +1,163 @@
+package com.auth.server.controller;
+
+import com.auth.server.audit.AuditLog;
+import com.auth.server.dto.ApiResponse;
+import com.auth.server.dto.ShardStatus;
+import com.auth.server.dto.UserExportFilter;
+import com.auth.server.entity.SchedulerLease;
+import com.auth.server.repository.SchedulerLeaseRepository;
+import com.auth.server.security.Role;
+import com.auth.server.service.UserExportService;
+import com.auth.server.service.UserImportService;
+import com.auth.server.service.UserService;
+import com.auth.server.sharding.ShardRebalancer;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_AUDIT_EVENTS = 10000;
+
+    private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
+    private final SchedulerLeaseRepository schedulerLeaseRepository;
+    private final AuditLog auditLog;
+    private final ShardRebalancer shardRebalancer;
+
+    /**
+     * Bulk import users from NDJSON or CSV, streaming one result per row
+     * POST /api/admin/users/import
+     */
+    @PostMapping(value = "/users/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<StreamingResponseBody> importUsers(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "false") boolean verified) {
+        UserImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+
+        StreamingResponseBody body = output ->
+                userImportService.importUsers(request.getInputStream(), format, verified, output);
+
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Replace a user's roles, e.g. ["INTROSPECTION"] for a gateway account; [] removes them all
+     * PUT /api/admin/users/{username}/roles
+     */
+    @PutMapping("/users/{username}/roles")
+    public ResponseEntity<ApiResponse> setRoles(@PathVariable String username, @RequestBody Set<Role> roles) {
+        return ResponseEntity.ok(userService.setRoles(username, roles));
+    }
+
+    /**
+     * Export users as NDJSON, optionally filtered
+     * GET /api/admin/users/export
+     */
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) Boolean emailVerified,
+            @RequestParam(required = false) Boolean mobileVerified,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAfter,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime lastLoginBefore) {
+        UserExportFilter filter = new UserExportFilter(
+                emailVerified, mobileVerified, enabled, createdAfter, lastLoginBefore);
+
+        StreamingResponseBody body = output -> userExportService.exportUsers(filter, output);
+
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Cluster-wide state of scheduled jobs: current lease holder and last run
+     * GET /api/admin/scheduler/jobs
+     */
+    @GetMapping("/scheduler/jobs")
+    public ResponseEntity<List<SchedulerLease>> schedulerJobs() {
+        return ResponseEntity.ok(schedulerLeaseRepository.findAll());
+    }
+
+    /**
+     * Audit events as NDJSON, from a sequence number or the most recent ones.
+     * X-Audit-Next-Sequence is the "from" to pass on the next poll
+     * GET /api/admin/audit/events
+     */
+    @GetMapping("/audit/events")
+    public ResponseEntity<byte[]> auditEvents(
+            @RequestParam(required = false) Long from,
+            @RequestParam(defaultValue = "1000") int limit) throws IOException {
+        int max = Math.max(1, Math.min(limit, MAX_AUDIT_EVENTS));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        long next = from != null ? auditLog.read(from, max, body) : auditLog.tail(max, body);
+
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header("X-Audit-Next-Sequence", Long.toString(next))
+                .body(body.toByteArray());
+    }
+
+    /**
+     * Buckets and users per shard
+     * GET /api/admin/shards
+     */
+    @GetMapping("/shards")
+    public ResponseEntity<List<ShardStatus>> shards() {
+        return ResponseEntity.ok(shardRebalancer.status());
+    }
+
+    /**
+     * Even out buckets over all shards, emptying the drained ones. Runs in the
+     * background; follow it with GET /api/admin/shards and /api/admin/scheduler/jobs
+     * POST /api/admin/shards/rebalance
+     */
+    @PostMapping("/shards/rebalance")
+    public ResponseEntity<ApiResponse> rebalanceShards(@RequestParam(required = false) Set<String> drain) {
+        int moving = shardRebalancer.rebalance(drain != null ? drain : Set.of());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse(true, "Rebalance started: " + moving + " buckets to move"));
+    }
+
+    /**
+     * Move specific buckets to a shard, in the background
+     * POST /api/admin/shards/move
+     */
+    @PostMapping("/shards/move")
+    public ResponseEntity<ApiResponse> moveBuckets(@RequestParam List<Integer> buckets, @RequestParam String target) {
+        int moving = shardRebalancer.move(buckets, target);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new ApiResponse(true, "Move started: " + moving + " buckets to move"));
+    }
+
+    /**
+     * Rebuild the email / mobile number index from the shards
+     * POST /api/admin/shards/reindex
+     */
+    @PostMapping("/shards/reindex")
+    public ResponseEntity<ApiResponse> reindexShards() {
+        Map<String, Long> counts = shardRebalancer.reindex();
+        return ResponseEntity.ok(new ApiResponse(true, "Index rebuilt", counts));
+    }
+}
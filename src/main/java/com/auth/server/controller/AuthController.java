@@ -1,20 +1,27 @@
 package com.auth.server.controller;
 
 import com.auth.server.dto.*;
+import com.auth.server.security.AvailabilityRateLimiter;
+import com.auth.server.service.TokenIntrospectionService;
 import com.auth.server.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
     private final UserService userService;
+    private final AvailabilityRateLimiter availabilityRateLimiter;
+    private final TokenIntrospectionService tokenIntrospectionService;
 
     /**
      * Register a new user
@@ -68,8 +75,11 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
         try {
-            AuthResponse response = userService.login(request);
-            return ResponseEntity.ok(response);
+            LoginResult result = userService.login(request);
+            if (!result.isSuccess()) {
+                return result.getFailureResponse();
+            }
+            return ResponseEntity.ok(result.getAuthResponse());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ApiResponse(false, e.getMessage()));
@@ -128,6 +138,32 @@ public class AuthController {
         }
     }
 
+    /**
+     * Check whether a username and/or email is still available
+     * GET /api/auth/availability?username=...&email=...
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<ApiResponse> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            HttpServletRequest httpRequest) {
+        if (!availabilityRateLimiter.tryAcquire(httpRequest.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new ApiResponse(false, "Too many requests. Please slow down."));
+        }
+        return ResponseEntity.ok(userService.checkAvailability(username, email));
+    }
+
+    /**
+     * Verify a batch of tokens for an API gateway
+     * POST /api/auth/introspect
+     */
+    @PostMapping("/introspect")
+    public ResponseEntity<ApiResponse> introspect(@Valid @RequestBody IntrospectionRequest request) {
+        return ResponseEntity.ok(new ApiResponse(true, "Tokens introspected",
+                tokenIntrospectionService.introspect(request.getTokens())));
+    }
+
     /**
      * Resend OTP
      * POST /api/auth/resend-otp
@@ -0,0 +1,52 @@
+package com.auth.server.datasource;
+
+/**
+ * Per-thread routing state. Once a request has written to the primary, all
+ * following reads in that request are pinned to the primary so they see
+ * their own writes regardless of replica lag.
+ *
+ * Pinning only sticks inside a scope opened with {@link #open()}, which
+ * ReplicaRoutingFilter does for every request. Closing the scope clears it,
+ * so threads that are not serving requests (schedulers, runners) never keep
+ * a pin from an earlier unit of work.
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Pin> CURRENT = new ThreadLocal<>();
+
+    // Returned when a scope is already open; the outer scope owns the state
+    private static final Scope NESTED = () -> {
+    };
+
+    private ReplicaRoutingContext() {
+    }
+
+    public static Scope open() {
+        if (CURRENT.get() != null) {
+            return NESTED;
+        }
+        CURRENT.set(new Pin());
+        return CURRENT::remove;
+    }
+
+    public static void pinPrimary() {
+        Pin pin = CURRENT.get();
+        if (pin != null) {
+            pin.primary = true;
+        }
+    }
+
+    public static boolean isPrimaryPinned() {
+        Pin pin = CURRENT.get();
+        return pin != null && pin.primary;
+    }
+
+    private static final class Pin {
+        private boolean primary;
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
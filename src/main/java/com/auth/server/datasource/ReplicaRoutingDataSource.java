@@ -0,0 +1,114 @@
+package com.auth.server.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica whose replay lag is within the
+ * configured bound and everything else to the primary. Must be wrapped in a
+ * LazyConnectionDataSourceProxy so the read-only flag of the transaction is
+ * known by the time a physical connection is requested.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+
+    // NULL when the replica is not streaming from its primary: it stops receiving WAL, so having
+    // replayed all it received says nothing about lag. Without pg_read_all_stats the receiver's
+    // status reads as NULL, so only its absence counts then. Zero when a streaming replica has
+    // replayed everything it received (also on an idle primary), else the age of the last replay.
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver
+                                 WHERE status = 'streaming' OR status IS NULL) THEN NULL
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0)
+            END
+            """;
+
+    private final Map<String, DataSource> replicas;
+    private final long maxLagMs;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private volatile List<String> healthyReplicas = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagMs) {
+        this.replicas = replicas;
+        this.maxLagMs = maxLagMs;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReplicaRoutingContext.pinPrimary();
+            }
+            return PRIMARY;
+        }
+
+        List<String> candidates = healthyReplicas;
+        if (candidates.isEmpty() || ReplicaRoutingContext.isPrimaryPinned()) {
+            return PRIMARY;
+        }
+        return candidates.get(Math.floorMod(roundRobin.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * Re-measure replica lag and refresh the set of replicas eligible for reads
+     */
+    public void refreshReplicaLag() {
+        List<String> healthy = replicas.entrySet().stream()
+                .filter(entry -> {
+                    long lagMs = measureLagMs(entry.getKey(), entry.getValue());
+                    return lagMs >= 0 && lagMs <= maxLagMs;
+                })
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+
+        if (!healthy.equals(healthyReplicas)) {
+            log.info("Replicas eligible for reads: {}", healthy);
+        }
+        healthyReplicas = healthy;
+    }
+
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    private long measureLagMs(String name, DataSource replica) {
+        try (Connection con = replica.getConnection();
+             Statement statement = con.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+            rs.next();
+            long lagMs = rs.getLong(1);
+            if (rs.wasNull()) {
+                log.warn("Replica {} is not streaming from the primary", name);
+                return -1;
+            }
+            return lagMs;
+        } catch (Exception e) {
+            log.warn("Replica {} is unreachable: {}", name, e.getMessage());
+            return -1;
+        }
+    }
+}
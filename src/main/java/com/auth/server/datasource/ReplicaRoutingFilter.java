@@ -0,0 +1,25 @@
+package com.auth.server.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens a read-your-writes scope for every request and closes it at the end,
+ * so pooled request threads start on replicas again.
+ */
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try (ReplicaRoutingContext.Scope scope = ReplicaRoutingContext.open()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.auth.server.dto;
+
+/**
+ * Response bodies for expected failures, shared instead of built per request
+ */
+public final class ErrorResponses {
+
+    public static final ApiResponse INVALID_OTP = new ReadOnlyApiResponse(false, "Invalid or expired OTP");
+    public static final ApiResponse USER_NOT_FOUND = new ReadOnlyApiResponse(false, "User not found");
+    public static final ApiResponse OLD_PASSWORD_INCORRECT = new ReadOnlyApiResponse(false, "Old password is incorrect");
+
+    private ErrorResponses() {
+    }
+}
@@ -0,0 +1,25 @@
+package com.auth.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportRowResult {
+    private long line;
+    private String username;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID,
+        // Valid row that could not be written right now, e.g. its shard bucket was being moved
+        FAILED
+    }
+}
@@ -0,0 +1,49 @@
+package com.auth.server.dto;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Outcome of a login attempt. Expected failures are shared constants with a
+ * prebuilt 401 response, so rejecting a bad password allocates nothing and
+ * captures no stack trace.
+ */
+@Getter
+public class LoginResult {
+
+    public enum Status {
+        SUCCESS,
+        INVALID_CREDENTIALS,
+        NOT_VERIFIED,
+        LOCKED
+    }
+
+    public static final LoginResult INVALID_CREDENTIALS =
+            new LoginResult(Status.INVALID_CREDENTIALS, null, "Invalid username or password");
+    public static final LoginResult NOT_VERIFIED =
+            new LoginResult(Status.NOT_VERIFIED, null, "Account not verified. Please verify your email and mobile number.");
+    public static final LoginResult LOCKED =
+            new LoginResult(Status.LOCKED, null, "Account is locked. Please contact support.");
+
+    private final Status status;
+    private final AuthResponse authResponse;
+    private final String message;
+    private final ResponseEntity<ApiResponse> failureResponse;
+
+    private LoginResult(Status status, AuthResponse authResponse, String message) {
+        this.status = status;
+        this.authResponse = authResponse;
+        this.message = message;
+        this.failureResponse = status == Status.SUCCESS ? null
+                : ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ReadOnlyApiResponse(false, message));
+    }
+
+    public static LoginResult success(AuthResponse authResponse) {
+        return new LoginResult(Status.SUCCESS, authResponse, authResponse.getMessage());
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+}
@@ -0,0 +1,32 @@
+package com.auth.server.dto;
+
+/**
+ * ApiResponse for bodies shared by every request (ErrorResponses, the
+ * LoginResult failures). Its setters throw, so one caller cannot change the
+ * body all the others return.
+ */
+public final class ReadOnlyApiResponse extends ApiResponse {
+
+    ReadOnlyApiResponse(boolean success, String message) {
+        super(success, message);
+    }
+
+    @Override
+    public void setSuccess(boolean success) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setMessage(String message) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setData(Object data) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Shared response bodies are read-only");
+    }
+}
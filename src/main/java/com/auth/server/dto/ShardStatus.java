@@ -0,0 +1,15 @@
+package com.auth.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardStatus {
+    private String name;
+    private int buckets;
+    private int movingBuckets;
+    private long users;
+}
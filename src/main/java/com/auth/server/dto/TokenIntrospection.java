@@ -0,0 +1,36 @@
+package com.auth.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result for one token, in request order. expiresAt is epoch seconds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenIntrospection {
+    private boolean active;
+    private String subject;
+    private Long expiresAt;
+    private Reason reason;
+
+    public enum Reason {
+        EXPIRED,
+        INVALID_SIGNATURE,
+        MALFORMED,
+        UNSUPPORTED,
+        EMPTY
+    }
+
+    public static TokenIntrospection active(String subject, long expiresAt) {
+        return new TokenIntrospection(true, subject, expiresAt, null);
+    }
+
+    public static TokenIntrospection inactive(Reason reason) {
+        return new TokenIntrospection(false, null, null, reason);
+    }
+}
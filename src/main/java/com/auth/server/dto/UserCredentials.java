@@ -0,0 +1,17 @@
+package com.auth.server.dto;
+
+/**
+ * The columns of users that authentication needs. Loaded with a constructor
+ * expression, so it is never a managed entity: no persistence context entry,
+ * no snapshot and nothing to dirty-check.
+ */
+public record UserCredentials(
+        Long id,
+        String username,
+        String email,
+        String password,
+        boolean enabled,
+        boolean accountNonLocked,
+        String roles
+) {
+}
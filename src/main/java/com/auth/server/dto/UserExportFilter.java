@@ -0,0 +1,18 @@
+package com.auth.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserExportFilter {
+    private Boolean emailVerified;
+    private Boolean mobileVerified;
+    private Boolean enabled;
+    private LocalDateTime createdAfter;
+    private LocalDateTime lastLoginBefore;
+}
@@ -0,0 +1,46 @@
+package com.auth.server.dto;
+
+import com.auth.server.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserExportRecord {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private String email;
+    private String mobileNumber;
+    private boolean emailVerified;
+    private boolean mobileVerified;
+    private boolean enabled;
+    private boolean accountNonLocked;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime lastLoginAt;
+
+    // Password hashes are never exported
+    public static UserExportRecord from(User user) {
+        return new UserExportRecord(
+                user.getId(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getMobileNumber(),
+                user.isEmailVerified(),
+                user.isMobileVerified(),
+                user.isEnabled(),
+                user.isAccountNonLocked(),
+                user.getCreatedAt(),
+                user.getUpdatedAt(),
+                user.getLastLoginAt()
+        );
+    }
+}
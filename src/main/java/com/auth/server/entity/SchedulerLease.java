@@ -0,0 +1,39 @@
+package com.auth.server.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cluster-wide lease for one scheduled job; see ClusterJobRunner.
+ * All times are taken from the database clock.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+
+    private LocalDateTime lastFinishedAt;
+
+    private Long lastDurationMs;
+
+    private String lastStatus;
+}
@@ -10,12 +10,30 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+// Named so duplicate registrations can be told apart by constraint (see UserService)
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.USERNAME_KEY, columnNames = "username"),
+        @UniqueConstraint(name = User.EMAIL_KEY, columnNames = "email"),
+        @UniqueConstraint(name = User.MOBILE_NUMBER_KEY, columnNames = "mobile_number")
+})
+// Used by UserRepository's credential lookups
+@NamedQuery(name = "User.findCredentialsByUsername",
+        query = "SELECT new com.auth.server.dto.UserCredentials(u.id, u.username, u.email, u.password, u.enabled, "
+                + "u.accountNonLocked, u.roles) FROM User u WHERE u.username = :username")
+@NamedQuery(name = "User.findCredentialsByUsernameOrEmail",
+        query = "SELECT new com.auth.server.dto.UserCredentials(u.id, u.username, u.email, u.password, u.enabled, "
+                + "u.accountNonLocked, u.roles) FROM User u WHERE u.username = :identifier OR u.email = :identifier")
+@NamedQuery(name = "User.updateLastLoginAt",
+        query = "UPDATE User u SET u.lastLoginAt = :lastLoginAt WHERE u.id = :id")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
 
+    public static final String USERNAME_KEY = "users_username_key";
+    public static final String EMAIL_KEY = "users_email_key";
+    public static final String MOBILE_NUMBER_KEY = "users_mobile_number_key";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -26,16 +44,16 @@ public class User {
     @Column(nullable = false)
     private String lastName;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String username;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
     @Column(nullable = false)
     private String password;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String mobileNumber;
 
     @Column(nullable = false)
@@ -59,4 +77,7 @@ public class User {
     private LocalDateTime updatedAt;
 
     private LocalDateTime lastLoginAt;
+
+    // Comma separated Role names; never set by registration or import
+    private String roles;
 }
@@ -0,0 +1,32 @@
+package com.auth.server.health;
+
+import com.auth.server.service.OtpDeliveryService;
+import com.auth.server.util.CircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes OTP provider circuit breaker state under /actuator/health (details for ROLE_ADMIN only)
+ */
+@Component("otpProviders")
+@RequiredArgsConstructor
+public class OtpProvidersHealthIndicator implements HealthIndicator {
+
+    private final OtpDeliveryService otpDeliveryService;
+
+    @Override
+    public Health health() {
+        boolean allOpen = true;
+        Health.Builder builder = Health.up();
+
+        for (CircuitBreaker breaker : otpDeliveryService.getBreakers()) {
+            builder.withDetail(breaker.getName(), breaker.snapshot());
+            allOpen &= breaker.getState() == CircuitBreaker.State.OPEN;
+        }
+
+        // Only report DOWN when no OTP channel is usable at all
+        return allOpen ? builder.down().build() : builder.build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.auth.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * DDL for the daily partitions of the otps table (see db/otps-partitioning.sql).
+ * Partitions are named otps_pYYYYMMDD and cover [day, day + 1) of created_at.
+ * Callers run these in a transaction so the lock timeout applies.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OtpPartitionRepository {
+
+    private static final String PREFIX = "otps_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String LIST_SQL = """
+            SELECT c.relname FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'otps'::regclass AND c.relname LIKE 'otps\\_p%'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Days that currently have a partition, oldest first
+     */
+    public List<LocalDate> findPartitionDays() {
+        return jdbcTemplate.queryForList(LIST_SQL, String.class).stream()
+                .map(OtpPartitionRepository::parseDay)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    public void createPartition(LocalDate day) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name(day) + " PARTITION OF otps FOR VALUES FROM ('"
+                + day + "') TO ('" + day.plusDays(1) + "')");
+    }
+
+    /**
+     * Detach the partition from otps and drop it; O(1) regardless of how many rows it holds
+     */
+    public void dropPartition(LocalDate day) {
+        jdbcTemplate.execute("ALTER TABLE otps DETACH PARTITION " + name(day));
+        jdbcTemplate.execute("DROP TABLE " + name(day));
+    }
+
+    /**
+     * Today by the database's clock, as db/otps-partitioning.sql sees it
+     */
+    public LocalDate currentDate() {
+        return jdbcTemplate.queryForObject("SELECT current_date", LocalDate.class);
+    }
+
+    /**
+     * Whether any row fell outside the pre-created range
+     */
+    public boolean defaultPartitionHasRows() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM otps_default)", Boolean.class));
+    }
+
+    /**
+     * Abort instead of queueing behind long-running queries on otps, which would block all OTP traffic
+     */
+    public void setLockTimeout(long millis) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + millis);
+    }
+
+    private static String name(LocalDate day) {
+        return PREFIX + SUFFIX.format(day);
+    }
+
+    private static LocalDate parseDay(String name) {
+        try {
+            return LocalDate.parse(name.substring(PREFIX.length()), SUFFIX);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
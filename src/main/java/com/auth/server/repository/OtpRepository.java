@@ -2,7 +2,11 @@ package com.auth.server.repository;
 
 import com.auth.server.entity.Otp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -10,24 +14,41 @@ import java.util.Optional;
 @Repository
 public interface OtpRepository extends JpaRepository<Otp, Long> {
     
-    Optional<Otp> findByIdentifierAndOtpAndTypeAndPurposeAndUsedFalse(
-            String identifier, 
-            String otp, 
-            Otp.OtpType type, 
-            Otp.OtpPurpose purpose
+    /*
+     * otps is range-partitioned by created_at; every query bounds created_at from
+     * below (codes created before "since" have expired) so only the newest
+     * partitions are scanned.
+     */
+
+    /**
+     * Mark the OTP used if it is still unused and unexpired, in one statement.
+     * Returns 1 for exactly one of any number of concurrent callers.
+     */
+    @Modifying
+    @Query("UPDATE Otp o SET o.used = true, o.usedAt = :now " +
+            "WHERE o.identifier = :identifier AND o.otp = :otp AND o.type = :type AND o.purpose = :purpose " +
+            "AND o.used = false AND o.expiryTime > :now AND o.createdAt > :since")
+    int consume(
+            @Param("identifier") String identifier,
+            @Param("otp") String otp,
+            @Param("type") Otp.OtpType type,
+            @Param("purpose") Otp.OtpPurpose purpose,
+            @Param("now") LocalDateTime now,
+            @Param("since") LocalDateTime since
     );
     
-    Optional<Otp> findTopByIdentifierAndTypeAndPurposeAndUsedFalseOrderByCreatedAtDesc(
+    @Transactional(readOnly = true)
+    Optional<Otp> findTopByIdentifierAndTypeAndPurposeAndUsedFalseAndCreatedAtAfterOrderByCreatedAtDesc(
             String identifier, 
             Otp.OtpType type, 
-            Otp.OtpPurpose purpose
+            Otp.OtpPurpose purpose,
+            LocalDateTime since
     );
     
-    void deleteByExpiryTimeBefore(LocalDateTime dateTime);
-    
-    void deleteByIdentifierAndTypeAndPurpose(
+    void deleteByIdentifierAndTypeAndPurposeAndCreatedAtAfter(
             String identifier, 
             Otp.OtpType type, 
-            Otp.OtpPurpose purpose
+            Otp.OtpPurpose purpose,
+            LocalDateTime since
     );
 }
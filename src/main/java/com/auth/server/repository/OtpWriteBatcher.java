@@ -0,0 +1,285 @@
+package com.auth.server.repository;
+
+import com.auth.server.datasource.ReplicaRoutingContext;
+import com.auth.server.entity.Otp;
+import com.auth.server.sharding.ShardContext;
+import com.auth.server.sharding.ShardRouter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for OTP writes. Request threads enqueue "replace the OTP for
+ * (identifier, type, purpose)" operations and wait; a single flusher thread
+ * drains them into micro-batches executed as one JDBC batch and one commit.
+ *
+ * Each flush borrows a connection from the pool and returns it, so Hikari's
+ * validation and maxLifetime apply and a broken connection only fails one
+ * batch. With sharding, each write goes to the shard selected by its caller,
+ * on that shard's pool, and the flusher keeps one id block per shard.
+ *
+ * A batched write commits independently of any transaction the caller has
+ * open, so OtpService only batches sends made outside a transaction (resend,
+ * forgot password), and waits for them holding no connection of its own.
+ * OTPs created inside a caller's transaction, such as registration, are
+ * written through JPA and roll back with it. Callers wait at most
+ * otp.write-batch.max-wait-ms for their write.
+ */
+@Component
+@RequiredArgsConstructor
+public class OtpWriteBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OtpWriteBatcher.class);
+
+    // created_at bound keeps the delete on the newest otps partitions; older codes have expired anyway
+    private static final String DELETE_SQL =
+            "DELETE FROM otps WHERE identifier = ? AND type = ? AND purpose = ? AND created_at > ?";
+
+    private static final String INSERT_SQL = """
+            INSERT INTO otps (id, otp, identifier, type, purpose, expiry_time, used, created_at, used_at)
+            VALUES (?, ?, ?, ?, ?, ?, false, ?, NULL)
+            """;
+
+    private final DataSource dataSource;
+    private final ShardRouter shardRouter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${otp.expiration}")
+    private long otpExpirationMs;
+
+    @Value("${otp.write-batch.max-size:256}")
+    private int maxBatchSize;
+
+    @Value("${otp.write-batch.max-delay-ms:2}")
+    private long maxDelayMs;
+
+    @Value("${otp.write-batch.max-wait-ms:5000}")
+    private long maxWaitMs;
+
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+    private Thread flusher;
+    private volatile boolean running;
+
+    // Per shard (null key without sharding), only touched by the flusher thread
+    private final Map<String, Target> targets = new HashMap<>();
+
+    private DistributionSummary batchSizes;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void start() {
+        batchSizes = DistributionSummary.builder("otp.write.batch.size")
+                .description("OTP writes committed per group commit")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("otp.write.flush")
+                .description("Time to execute and commit one OTP write batch")
+                .register(meterRegistry);
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "otp-write-batcher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(5000);
+    }
+
+    /**
+     * Replace any existing OTP for the same identifier, type and purpose with
+     * this one. Blocks until the write has been committed, or fails after
+     * max-wait-ms; a write already being flushed by then may still commit.
+     */
+    public void replace(Otp otp) {
+        // The write happens on the flusher thread, so pin this request to the primary here
+        ReplicaRoutingContext.pinPrimary();
+
+        PendingWrite write = new PendingWrite(otp, ShardContext.current());
+        queue.add(write);
+        try {
+            write.future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Still queued means never written; withdraw it so it cannot commit after we gave up
+            queue.remove(write);
+            throw new RuntimeException("Timed out storing OTP");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to store OTP", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted storing OTP", e);
+        }
+    }
+
+    private void runFlusher() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Give concurrent requests a short window to join this commit
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Never leave a caller waiting on a write that was already dequeued
+                queue.drainTo(batch);
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                if (!running) {
+                    return;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        Map<String, List<PendingWrite>> byShard = new HashMap<>();
+        for (PendingWrite write : batch) {
+            byShard.computeIfAbsent(write.shard, shard -> new ArrayList<>()).add(write);
+        }
+
+        long start = System.nanoTime();
+        try {
+            byShard.forEach((shard, writes) -> flush(targets.computeIfAbsent(shard, Target::new), writes));
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizes.record(batch.size());
+        }
+    }
+
+    private void flush(Target target, List<PendingWrite> writes) {
+        // A later write for the same key supersedes an earlier one, exactly as if
+        // the two requests had run one after the other
+        Map<String, PendingWrite> latest = new LinkedHashMap<>();
+        for (PendingWrite write : writes) {
+            latest.put(write.key(), write);
+        }
+
+        // The flusher thread never has a shard selected, so take the shard's own pool
+        DataSource pool = target.shard == null ? dataSource : shardRouter.dataSource(target.shard);
+        try (Connection con = pool.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement delete = con.prepareStatement(DELETE_SQL);
+                 PreparedStatement insert = con.prepareStatement(INSERT_SQL)) {
+                for (PendingWrite write : latest.values()) {
+                    Otp otp = write.otp;
+                    delete.setString(1, otp.getIdentifier());
+                    delete.setString(2, otp.getType().name());
+                    delete.setString(3, otp.getPurpose().name());
+                    delete.setTimestamp(4, Timestamp.valueOf(otp.getCreatedAt().minus(otpExpirationMs, ChronoUnit.MILLIS)));
+                    delete.addBatch();
+
+                    otp.setId(target.nextId(con));
+                    insert.setLong(1, otp.getId());
+                    insert.setString(2, otp.getOtp());
+                    insert.setString(3, otp.getIdentifier());
+                    insert.setString(4, otp.getType().name());
+                    insert.setString(5, otp.getPurpose().name());
+                    insert.setTimestamp(6, Timestamp.valueOf(otp.getExpiryTime()));
+                    insert.setTimestamp(7, Timestamp.valueOf(otp.getCreatedAt()));
+                    insert.addBatch();
+                }
+                delete.executeBatch();
+                insert.executeBatch();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+
+            writes.forEach(write -> write.future.complete(null));
+        } catch (Exception e) {
+            log.error("OTP write batch of {} failed{}", writes.size(),
+                    target.shard != null ? " on shard " + target.shard : "", e);
+            writes.forEach(write -> write.future.completeExceptionally(e));
+        }
+    }
+
+    // Id block for one shard
+    private static class Target {
+        private final String shard;
+
+        // Current block of pre-reserved ids
+        private long nextId;
+        private long blockEnd;
+
+        private Target(String shard) {
+            this.shard = shard;
+        }
+
+        // One sequence round trip per BLOCK_SIZE rows, same pooled-lo scheme as Hibernate
+        private long nextId(Connection con) throws SQLException {
+            if (nextId == blockEnd) {
+                try (PreparedStatement ps = con.prepareStatement("SELECT nextval('otps_seq')");
+                     ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    nextId = rs.getLong(1);
+                    blockEnd = nextId + SequenceAllocator.BLOCK_SIZE;
+                }
+            }
+            return nextId++;
+        }
+    }
+
+    private static class PendingWrite {
+        private final Otp otp;
+        private final String shard;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingWrite(Otp otp, String shard) {
+            this.otp = otp;
+            this.shard = shard;
+        }
+
+        private String key() {
+            return otp.getIdentifier() + '|' + otp.getType() + '|' + otp.getPurpose();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.auth.server.repository;
+
+import com.auth.server.entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Take the lease if it is free or expired. Returns 1 when acquired. The owner
+     * gets no exception: its own lease also blocks it until locked_until, so a node
+     * whose trigger fires twice in an interval still runs the job only once.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO scheduler_leases (name, owner, locked_at, locked_until)
+            VALUES (:name, :owner, now(), now() + :lockAtMostMs * interval '1 millisecond')
+            ON CONFLICT (name) DO UPDATE
+                SET owner = EXCLUDED.owner, locked_at = EXCLUDED.locked_at, locked_until = EXCLUDED.locked_until
+                WHERE scheduler_leases.locked_until <= now()
+            """, nativeQuery = true)
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("lockAtMostMs") long lockAtMostMs);
+
+    /**
+     * Record the run and keep the lease until at least lockAtLeastMs after it was taken,
+     * so nodes whose schedule fires a little later skip this interval
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE scheduler_leases
+            SET locked_until = GREATEST(now(), locked_at + :lockAtLeastMs * interval '1 millisecond'),
+                last_finished_at = now(), last_duration_ms = :durationMs, last_status = :status
+            WHERE name = :name AND owner = :owner
+            """, nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("lockAtLeastMs") long lockAtLeastMs,
+                @Param("durationMs") long durationMs, @Param("status") String status);
+}
@@ -0,0 +1,37 @@
+package com.auth.server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reserves primary keys for rows written outside of Hibernate.
+ * Uses the same *_seq sequences and pooled-lo semantics as the entity
+ * id generators: every nextval value v owns the block [v, v + BLOCK_SIZE).
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceAllocator {
+
+    // Must match the increment of the Hibernate generated sequences
+    public static final int BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long[] allocate(String sequenceName, int count) {
+        int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        List<Long> blockStarts = jdbcTemplate.queryForList(
+                "SELECT nextval('" + sequenceName + "') FROM generate_series(1, ?)",
+                Long.class,
+                blocks
+        );
+
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = blockStarts.get(i / BLOCK_SIZE) + (i % BLOCK_SIZE);
+        }
+        return ids;
+    }
+}
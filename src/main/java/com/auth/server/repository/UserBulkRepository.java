@@ -0,0 +1,118 @@
+package com.auth.server.repository;
+
+import com.auth.server.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC access to the users table for bulk operations where going through
+ * the persistence context one entity at a time would be too slow.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserBulkRepository {
+
+    // One statement for the whole batch; RETURNING reports exactly the rows that went in
+    private static final String INSERT_SQL = """
+            INSERT INTO users (id, first_name, last_name, username, email, password, mobile_number,
+                               email_verified, mobile_verified, enabled, account_non_locked,
+                               created_at, updated_at)
+            SELECT * FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[],
+                                 ?::varchar[], ?::varchar[], ?::boolean[], ?::boolean[], ?::boolean[],
+                                 ?::boolean[], ?::timestamp[], ?::timestamp[])
+            ON CONFLICT DO NOTHING
+            RETURNING id
+            """;
+
+    private static final String[] ARRAY_TYPES = {"bigint", "varchar", "varchar", "varchar", "varchar", "varchar",
+            "varchar", "boolean", "boolean", "boolean", "boolean", "timestamp", "timestamp"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceAllocator sequenceAllocator;
+
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        return findExisting("username", usernames);
+    }
+
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        return findExisting("email", emails);
+    }
+
+    public Set<String> findExistingMobileNumbers(Collection<String> mobileNumbers) {
+        return findExisting("mobile_number", mobileNumbers);
+    }
+
+    /**
+     * Insert users with a single statement and return the ids of those inserted.
+     * Rows that hit a unique constraint (e.g. a concurrent registration) are
+     * skipped, so their ids are missing from the result.
+     */
+    public Set<Long> insertBatch(List<User> users) {
+        long[] ids = sequenceAllocator.allocate("users_seq", users.size());
+        int size = users.size();
+        Object[][] columns = new Object[13][size];
+        for (int i = 0; i < size; i++) {
+            User user = users.get(i);
+            user.setId(ids[i]);
+
+            Timestamp createdAt = Timestamp.valueOf(user.getCreatedAt());
+            columns[0][i] = user.getId();
+            columns[1][i] = user.getFirstName();
+            columns[2][i] = user.getLastName();
+            columns[3][i] = user.getUsername();
+            columns[4][i] = user.getEmail();
+            columns[5][i] = user.getPassword();
+            columns[6][i] = user.getMobileNumber();
+            columns[7][i] = user.isEmailVerified();
+            columns[8][i] = user.isMobileVerified();
+            columns[9][i] = user.isEnabled();
+            columns[10][i] = user.isAccountNonLocked();
+            columns[11][i] = createdAt;
+            columns[12][i] = createdAt;
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<Set<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL)) {
+                for (int c = 0; c < columns.length; c++) {
+                    ps.setArray(c + 1, con.createArrayOf(ARRAY_TYPES[c], columns[c]));
+                }
+                Set<Long> inserted = new HashSet<>(size * 2);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        inserted.add(rs.getLong(1));
+                    }
+                }
+                return inserted;
+            }
+        });
+    }
+
+    private Set<String> findExisting(String column, Collection<String> values) {
+        Set<String> existing = new HashSet<>();
+        if (values.isEmpty()) {
+            return existing;
+        }
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT " + column + " FROM users WHERE " + column + " = ANY(?)");
+            Array array = con.createArrayOf("varchar", values.toArray());
+            ps.setArray(1, array);
+            return ps;
+        }, rs -> {
+            existing.add(rs.getString(1));
+        });
+        return existing;
+    }
+}
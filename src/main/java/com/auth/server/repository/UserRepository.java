@@ -1,25 +1,60 @@
 package com.auth.server.repository;
 
+import com.auth.server.dto.UserCredentials;
 import com.auth.server.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
+    @Transactional(readOnly = true)
     Optional<User> findByUsername(String username);
     
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
     
+    @Transactional(readOnly = true)
     Optional<User> findByMobileNumber(String mobileNumber);
     
+    @Transactional(readOnly = true)
     Optional<User> findByUsernameOrEmail(String username, String email);
     
+    @Transactional(readOnly = true)
     boolean existsByUsername(String username);
     
+    @Transactional(readOnly = true)
     boolean existsByEmail(String email);
     
+    @Transactional(readOnly = true)
     boolean existsByMobileNumber(String mobileNumber);
+
+    /*
+     * Authentication paths read only credentials. The projections skip the rest
+     * of the row, and MANUAL flush mode skips the auto-flush Hibernate runs
+     * before a query, which dirty-checks every entity the caller's persistence
+     * context holds, even inside a read-write transaction. The JPQL is in the
+     * named queries on User.
+     */
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    Optional<UserCredentials> findCredentialsByUsername(@Param("username") String username);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    Optional<UserCredentials> findCredentialsByUsernameOrEmail(@Param("identifier") String usernameOrEmail);
+
+    // Bypasses @UpdateTimestamp: a login is not a change to the account
+    @Modifying
+    int updateLastLoginAt(@Param("id") Long id, @Param("lastLoginAt") LocalDateTime lastLoginAt);
 }
@@ -0,0 +1,134 @@
+package com.auth.server.scheduling;
+
+import com.auth.server.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a scheduled job on one node of the cluster per interval, coordinated
+ * through a lease row in scheduler_leases. Every node keeps its @Scheduled
+ * trigger; the first to take the lease runs the job and the rest skip.
+ *
+ * lockAtMostFor bounds how long a crashed owner blocks the job; lockAtLeastFor
+ * (a little under the interval) stops other nodes from re-running it in the
+ * same interval when their triggers fire at different offsets.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClusterJobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterJobRunner.class);
+
+    private final SchedulerLeaseRepository leaseRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.scheduler.node-id:}")
+    private String nodeId;
+
+    private TransactionTemplate leaseTransaction;
+
+    // job name -> epoch millis of the last successful run on this node
+    private final ConcurrentHashMap<String, AtomicLong> lastSuccess = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            // "pid@hostname/uuid": containers all tend to run the JVM as pid 1, and hostnames can repeat
+            nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+        }
+
+        // Lease changes must be visible to other nodes immediately, whatever the caller's transaction
+        leaseTransaction = new TransactionTemplate(transactionManager);
+        leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Run the task if this node gets the lease. Returns false if another node holds it.
+     */
+    public boolean runExclusively(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        if (!tryAcquire(jobName, lockAtMostFor)) {
+            Counter.builder("scheduler.job.skipped")
+                    .description("Runs skipped because another node held the lease")
+                    .tag("job", jobName)
+                    .register(meterRegistry)
+                    .increment();
+            log.debug("Skipping {}: lease held by another node", jobName);
+            return false;
+        }
+
+        long start = System.nanoTime();
+        String status = "success";
+        try {
+            task.run();
+            lastSuccess(jobName).set(System.currentTimeMillis());
+            return true;
+        } catch (RuntimeException e) {
+            status = "failure";
+            throw e;
+        } finally {
+            long durationNanos = System.nanoTime() - start;
+            log.info("Ran {} on {} in {} ms: {}", jobName, nodeId, TimeUnit.NANOSECONDS.toMillis(durationNanos), status);
+            Timer.builder("scheduler.job.duration")
+                    .description("Duration of scheduled jobs run under a cluster lease")
+                    .tags("job", jobName, "outcome", status)
+                    .register(meterRegistry)
+                    .record(durationNanos, TimeUnit.NANOSECONDS);
+            release(jobName, lockAtLeastFor, TimeUnit.NANOSECONDS.toMillis(durationNanos), status);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private boolean tryAcquire(String jobName, Duration lockAtMostFor) {
+        try {
+            Integer acquired = leaseTransaction.execute(status ->
+                    leaseRepository.tryAcquire(jobName, nodeId, lockAtMostFor.toMillis()));
+            return acquired != null && acquired == 1;
+        } catch (RuntimeException e) {
+            log.warn("Could not acquire lease for {}: {}", jobName, e.getMessage());
+            return false;
+        }
+    }
+
+    private void release(String jobName, Duration lockAtLeastFor, long durationMs, String status) {
+        try {
+            leaseTransaction.executeWithoutResult(tx ->
+                    leaseRepository.release(jobName, nodeId, lockAtLeastFor.toMillis(), durationMs, status));
+        } catch (RuntimeException e) {
+            // The lease still expires at lockAtMostFor
+            log.warn("Could not release lease for {}: {}", jobName, e.getMessage());
+        }
+    }
+
+    private AtomicLong lastSuccess(String jobName) {
+        return lastSuccess.computeIfAbsent(jobName, name -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("scheduler.job.last.success", value, v -> v.get() / 1000.0)
+                    .description("Epoch seconds of the last successful run on this node")
+                    .tag("job", name)
+                    .register(meterRegistry);
+            return value;
+        });
+    }
+}
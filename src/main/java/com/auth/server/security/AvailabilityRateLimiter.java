@@ -0,0 +1,34 @@
+package com.auth.server.security;
+
+import com.auth.server.util.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per client IP limit for the public availability endpoint, which is
+ * otherwise an easy way to enumerate registered usernames and emails
+ */
+@Component
+public class AvailabilityRateLimiter {
+
+    @Value("${app.availability.rate-limit.requests-per-minute:60}")
+    private int requestsPerMinute;
+
+    private RateLimiter rateLimiter;
+
+    @PostConstruct
+    public void init() {
+        rateLimiter = new RateLimiter(requestsPerMinute);
+    }
+
+    public boolean tryAcquire(String clientAddress) {
+        return rateLimiter.tryAcquire(clientAddress);
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleClients() {
+        rateLimiter.evictIdle();
+    }
+}
@@ -1,49 +1,57 @@
 package com.auth.server.security;
 
-import com.auth.server.entity.User;
+import com.auth.server.dto.UserCredentials;
 import com.auth.server.repository.UserRepository;
+import com.auth.server.sharding.ShardContext;
+import com.auth.server.sharding.ShardRouter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
 
+    // The repository lookups are read-only transactions of their own, opened inside the shard scope
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        UserCredentials user;
+        try (ShardContext.Scope shard = shardRouter.forUsernameReadOnly(username)) {
+            user = userRepository.findCredentialsByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        }
 
         return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                user.isEnabled(),
+                user.username(),
+                user.password(),
+                user.enabled(),
                 true, // accountNonExpired
                 true, // credentialsNonExpired
-                user.isAccountNonLocked(),
-                new ArrayList<>() // authorities - add roles if needed
+                user.accountNonLocked(),
+                Role.authorities(user.roles())
         );
     }
 
     public UserDetails loadUserByUsernameOrEmail(String usernameOrEmail) throws UsernameNotFoundException {
-        User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail));
+        UserCredentials user;
+        try (ShardContext.Scope shard = shardRouter.forUsernameOrEmailReadOnly(usernameOrEmail)) {
+            user = userRepository.findCredentialsByUsernameOrEmail(usernameOrEmail)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with username or email: " + usernameOrEmail));
+        }
 
         return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                user.isEnabled(),
+                user.username(),
+                user.password(),
+                user.enabled(),
                 true,
                 true,
-                user.isAccountNonLocked(),
-                new ArrayList<>()
+                user.accountNonLocked(),
+                Role.authorities(user.roles())
         );
     }
 }
@@ -0,0 +1,55 @@
+package com.auth.server.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Precomputed matcher for endpoint patterns that are either exact paths or
+ * end in "/**". Checking a request is one hash lookup plus a prefix check
+ * per wildcard pattern, instead of running every Ant pattern.
+ */
+public class EndpointPathMatcher {
+
+    private final Set<String> exactPaths = new HashSet<>();
+    private final String[] prefixes;
+
+    public EndpointPathMatcher(String... patterns) {
+        List<String> prefixList = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern.endsWith("/**")) {
+                prefixList.add(pattern.substring(0, pattern.length() - 3));
+            } else if (pattern.contains("*") || pattern.contains("{")) {
+                throw new IllegalArgumentException("Unsupported endpoint pattern: " + pattern);
+            } else {
+                exactPaths.add(pattern);
+            }
+        }
+        this.prefixes = prefixList.toArray(String[]::new);
+    }
+
+    public boolean matches(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        if (!contextPath.isEmpty() && path.startsWith(contextPath)) {
+            path = path.substring(contextPath.length());
+        }
+        return matches(path);
+    }
+
+    public boolean matches(String path) {
+        if (exactPaths.contains(path)) {
+            return true;
+        }
+        // "/a/**" matches "/a" and anything below it
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,148 @@
+package com.auth.server.security;
+
+import com.auth.server.util.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bulkheads for the servlet runtime. Requests are split into endpoint classes
+ * that each get their own adaptive concurrency limit, so a flood of BCrypt
+ * logins or slow SMS/email sends cannot take the Tomcat threads the other
+ * classes need. Requests over their class's limit are rejected with 503 and
+ * Retry-After before any authentication or database work.
+ *
+ * Health probes and admin endpoints (long-running streams) are not limited.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final byte[] BUSY_BODY =
+            "{\"success\":false,\"message\":\"Server is busy, please retry shortly\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static final EndpointPathMatcher UNLIMITED_ENDPOINTS =
+            new EndpointPathMatcher("/actuator/**", "/api/admin/**");
+
+    // Password hashing on every call
+    private static final EndpointPathMatcher BCRYPT_ENDPOINTS = new EndpointPathMatcher(
+            "/api/auth/login",
+            "/api/auth/register",
+            "/api/auth/change-password",
+            "/api/auth/reset-password");
+
+    // Bound by the SMS and email providers
+    private static final EndpointPathMatcher PROVIDER_ENDPOINTS = new EndpointPathMatcher(
+            "/api/auth/resend-otp",
+            "/api/auth/forgot-password");
+
+    private final Bulkhead bcrypt;
+    private final Bulkhead provider;
+    private final Bulkhead cheap;
+    private final String retryAfter;
+
+    public LoadSheddingFilter(LoadSheddingProperties properties, MeterRegistry meterRegistry) {
+        this.bcrypt = new Bulkhead("bcrypt", properties.getBcrypt(), meterRegistry);
+        this.provider = new Bulkhead("provider", properties.getProvider(), meterRegistry);
+        this.cheap = new Bulkhead("cheap", properties.getCheap(), meterRegistry);
+        this.retryAfter = String.valueOf(properties.getRetryAfterSeconds());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return UNLIMITED_ENDPOINTS.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Bulkhead bulkhead = classify(request);
+        AdaptiveConcurrencyLimit limit = bulkhead.limit;
+        if (!limit.tryAcquire()) {
+            bulkhead.shed.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(BUSY_BODY.length);
+            response.getOutputStream().write(BUSY_BODY);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Hold the slot until the async response completes
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limit, start));
+            } else {
+                limit.release(start);
+            }
+        }
+    }
+
+    private Bulkhead classify(HttpServletRequest request) {
+        if (BCRYPT_ENDPOINTS.matches(request)) {
+            return bcrypt;
+        }
+        if (PROVIDER_ENDPOINTS.matches(request)) {
+            return provider;
+        }
+        return cheap;
+    }
+
+    private static class Bulkhead {
+        private final AdaptiveConcurrencyLimit limit;
+        private final Counter shed;
+
+        private Bulkhead(String name, LoadSheddingProperties.Bulkhead properties, MeterRegistry meterRegistry) {
+            this.limit = new AdaptiveConcurrencyLimit(properties.getInitialLimit(), properties.getMinLimit(),
+                    properties.getMaxLimit(), properties.getLatencyThresholdMs(), properties.getBackoffRatio());
+            this.shed = Counter.builder("http.requests.shed")
+                    .description("Requests rejected with 503 because their endpoint class was at its concurrency limit")
+                    .tag("endpoint.class", name)
+                    .register(meterRegistry);
+            Gauge.builder("http.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("endpoint.class", name)
+                    .register(meterRegistry);
+            Gauge.builder("http.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Requests currently holding a slot")
+                    .tag("endpoint.class", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    private record ReleaseOnComplete(AdaptiveConcurrencyLimit limit, long start) implements AsyncListener {
+
+        // Fires once, after a timeout or error as well
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limit.release(start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
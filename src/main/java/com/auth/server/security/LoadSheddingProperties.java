@@ -0,0 +1,40 @@
+package com.auth.server.security;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Concurrency limits per endpoint class, see {@link LoadSheddingFilter}
+ */
+@Data
+@ConfigurationProperties(prefix = "app.load-shedding")
+public class LoadSheddingProperties {
+
+    private boolean enabled = true;
+
+    // Retry-After sent with 503 responses
+    private int retryAfterSeconds = 1;
+
+    private Bulkhead bcrypt = new Bulkhead(16, 2, 48, 500);
+    private Bulkhead provider = new Bulkhead(20, 2, 40, 3000);
+    private Bulkhead cheap = new Bulkhead(50, 10, 100, 250);
+
+    @Data
+    @NoArgsConstructor
+    public static class Bulkhead {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+        // Completions slower than this shrink the limit
+        private long latencyThresholdMs;
+        private double backoffRatio = 0.9;
+
+        Bulkhead(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMs) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyThresholdMs = latencyThresholdMs;
+        }
+    }
+}
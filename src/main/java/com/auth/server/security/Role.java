@@ -0,0 +1,34 @@
+package com.auth.server.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Roles stored on the user record (users.roles, comma separated, null for none).
+ * Registration and import never set them; they are granted by an admin or, for
+ * the first admin, directly in the database (see README).
+ */
+public enum Role {
+    ADMIN,
+    INTROSPECTION;
+
+    public static List<GrantedAuthority> authorities(String roles) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (roles == null || roles.isBlank()) {
+            return authorities;
+        }
+        for (String role : roles.split(",")) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + valueOf(role.trim()).name()));
+        }
+        return authorities;
+    }
+
+    public static String format(Set<Role> roles) {
+        return roles.isEmpty() ? null : roles.stream().map(Role::name).sorted().collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,163 @@
+package com.auth.server.service;
+
+import com.auth.server.repository.UserRepository;
+import com.auth.server.sharding.ShardContext;
+import com.auth.server.sharding.ShardIndexRepository;
+import com.auth.server.sharding.ShardRouter;
+import com.auth.server.util.BloomFilter;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Answers username/email availability from in-memory Bloom filters.
+ * A negative filter answer means the value is definitely unused and needs
+ * no database query; only possible conflicts are confirmed against the DB.
+ *
+ * Filters are per node: they are built from a streaming scan at startup,
+ * updated on local registrations and rebuilt periodically to pick up
+ * users created on other nodes. With sharding, the scan covers every shard
+ * and emails are confirmed against the global index.
+ *
+ * Until that rebuild, a value registered on another node is still reported
+ * available. This is accepted: the answer is only a hint for the signup form,
+ * and registration is guarded by the database constraints, not the filters.
+ */
+@Service
+@RequiredArgsConstructor
+public class AvailabilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityService.class);
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.availability.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${app.availability.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private final AtomicBoolean building = new AtomicBoolean();
+    private final Object lock = new Object();
+
+    private volatile BloomFilter usernames;
+    private volatile BloomFilter emails;
+    private volatile boolean ready;
+
+    // Filters being built by a running scan, guarded by lock
+    private BloomFilter nextUsernames;
+    private BloomFilter nextEmails;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        Thread.ofVirtual().name("availability-index").start(this::rebuild);
+    }
+
+    @Scheduled(initialDelayString = "${app.availability.rebuild-interval-ms:600000}",
+            fixedDelayString = "${app.availability.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            long[] users = {0};
+            shardRouter.forEachShard(() -> users[0] += userRepository.count());
+            long capacity = Math.max(expectedUsers, users[0] * 2);
+            BloomFilter newUsernames = new BloomFilter(capacity, falsePositiveRate);
+            BloomFilter newEmails = new BloomFilter(capacity, falsePositiveRate);
+            synchronized (lock) {
+                nextUsernames = newUsernames;
+                nextEmails = newEmails;
+            }
+
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            long[] scanned = {0};
+            shardRouter.forEachShard(() -> readOnly.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = entityManager
+                        .createQuery("SELECT u.username, u.email FROM User u", Object[].class)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                        .getResultStream()) {
+                    rows.forEach(row -> {
+                        newUsernames.add((String) row[0]);
+                        newEmails.add((String) row[1]);
+                        scanned[0]++;
+                    });
+                }
+            }));
+
+            // Users registered during the scan were recorded in both generations
+            synchronized (lock) {
+                usernames = newUsernames;
+                emails = newEmails;
+                nextUsernames = null;
+                nextEmails = null;
+            }
+            ready = true;
+
+            log.info("Availability index built: {} users in {} ms, {} KB per field",
+                    scanned[0], System.currentTimeMillis() - start, newUsernames.memoryBytes() / 1024);
+        } catch (Exception e) {
+            log.error("Failed to build availability index", e);
+        } finally {
+            synchronized (lock) {
+                nextUsernames = null;
+                nextEmails = null;
+            }
+            building.set(false);
+        }
+    }
+
+    /**
+     * Record a newly created user so the filters never report it as available
+     */
+    public void record(String username, String email) {
+        synchronized (lock) {
+            if (usernames != null) {
+                usernames.add(username);
+                emails.add(email);
+            }
+            if (nextUsernames != null) {
+                nextUsernames.add(username);
+                nextEmails.add(email);
+            }
+        }
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        if (ready && !usernames.mightContain(username)) {
+            return true;
+        }
+        try (ShardContext.Scope shard = shardRouter.forUsernameReadOnly(username)) {
+            return !userRepository.existsByUsername(username);
+        }
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (ready && !emails.mightContain(email)) {
+            return true;
+        }
+        if (shardRouter.isEnabled()) {
+            return shardRouter.findClaimed(ShardIndexRepository.Kind.EMAIL, List.of(email)).isEmpty();
+        }
+        return !userRepository.existsByEmail(email);
+    }
+}
@@ -1,13 +1,21 @@
 package com.auth.server.service;
 
+import com.auth.server.timing.RequestTiming;
 import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+
 @Service
 @RequiredArgsConstructor
 public class EmailService {
@@ -22,17 +30,61 @@ public class EmailService {
 
     public void sendOtpEmail(String toEmail, String otp, String purpose) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
+            send(createOtpEmail(toEmail, otp, purpose));
+        } catch (MessagingException e) {
+            throw new RuntimeException("Failed to send email: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Render an OTP email without sending it
+     */
+    public MimeMessage createOtpEmail(String toEmail, String otp, String purpose) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
 
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject(getEmailSubject(purpose));
-            helper.setText(getEmailBody(otp, purpose), true);
+        helper.setFrom(fromEmail);
+        helper.setTo(toEmail);
+        helper.setSubject(getEmailSubject(purpose));
+        helper.setText(getEmailBody(otp, purpose), true);
+        return message;
+    }
 
+    /**
+     * Whether a send failure means the mail server is unreachable or failing:
+     * connection, timeout, authentication and server errors count; a rejected
+     * recipient or a message that could not be built does not
+     */
+    public static boolean isProviderFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MailParseException || cause instanceof MailPreparationException) {
+                return false;
+            }
+            if (cause instanceof MailSendException send) {
+                return Arrays.stream(send.getMessageExceptions()).noneMatch(EmailService::isRecipientRejected);
+            }
+            if (cause instanceof MailException) {
+                return true;
+            }
+            if (cause instanceof MessagingException) {
+                // Thrown while rendering, before the server was contacted
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isRecipientRejected(Exception e) {
+        return e instanceof SendFailedException failed
+                && failed.getInvalidAddresses() != null && failed.getInvalidAddresses().length > 0;
+    }
+
+    private void send(MimeMessage message) {
+        long start = RequestTiming.start();
+        try {
             mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send email: " + e.getMessage());
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.SMTP, start);
         }
     }
 
@@ -92,20 +144,26 @@ public class EmailService {
 
     public void sendWelcomeEmail(String toEmail, String firstName) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Welcome to " + appName);
-            helper.setText(getWelcomeEmailBody(firstName), true);
-
-            mailSender.send(message);
+            send(createWelcomeEmail(toEmail, firstName));
         } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send welcome email: " + e.getMessage());
+            throw new RuntimeException("Failed to send welcome email: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Render a welcome email without sending it
+     */
+    public MimeMessage createWelcomeEmail(String toEmail, String firstName) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+
+        helper.setFrom(fromEmail);
+        helper.setTo(toEmail);
+        helper.setSubject("Welcome to " + appName);
+        helper.setText(getWelcomeEmailBody(firstName), true);
+        return message;
+    }
+
     private String getWelcomeEmailBody(String firstName) {
         return """
             <!DOCTYPE html>
@@ -0,0 +1,101 @@
+package com.auth.server.service;
+
+import com.auth.server.entity.Otp;
+import com.auth.server.entity.User;
+import com.auth.server.repository.UserRepository;
+import com.auth.server.util.CircuitBreaker;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class OtpDeliveryService {
+
+    // Purposes where the user can receive the code on either channel
+    private static final Set<Otp.OtpPurpose> CROSS_CHANNEL_PURPOSES =
+            EnumSet.of(Otp.OtpPurpose.FORGOT_PASSWORD, Otp.OtpPurpose.LOGIN_VERIFICATION);
+
+    private final EmailService emailService;
+    private final SmsService smsService;
+    private final UserRepository userRepository;
+
+    @Value("${otp.delivery.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${otp.delivery.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${otp.delivery.cross-channel-fallback:false}")
+    private boolean crossChannelFallback;
+
+    private CircuitBreaker emailBreaker;
+    private CircuitBreaker smsBreaker;
+
+    @PostConstruct
+    public void init() {
+        emailBreaker = new CircuitBreaker("email", failureThreshold, openDurationMs, EmailService::isProviderFailure);
+        smsBreaker = new CircuitBreaker("sms", failureThreshold, openDurationMs, SmsService::isProviderFailure);
+    }
+
+    /**
+     * Send OTP through the requested channel, falling back to the user's
+     * other channel when the primary provider fails and the purpose allows it
+     */
+    public void deliver(String identifier, String otpCode, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        try {
+            send(identifier, otpCode, type, purpose);
+        } catch (RuntimeException e) {
+            if (!crossChannelFallback || !CROSS_CHANNEL_PURPOSES.contains(purpose)) {
+                throw e;
+            }
+
+            Optional<String> alternate = findAlternateIdentifier(identifier, type);
+            if (alternate.isEmpty()) {
+                throw e;
+            }
+
+            Otp.OtpType fallbackType = type == Otp.OtpType.EMAIL ? Otp.OtpType.SMS : Otp.OtpType.EMAIL;
+            send(alternate.get(), otpCode, fallbackType, purpose);
+        }
+    }
+
+    /**
+     * Send the welcome email through the email provider's circuit breaker
+     */
+    public void sendWelcomeEmail(String email, String firstName) {
+        emailBreaker.run(() -> emailService.sendWelcomeEmail(email, firstName));
+    }
+
+    /**
+     * Send the welcome SMS through the SMS provider's circuit breaker
+     */
+    public void sendWelcomeSms(String mobileNumber, String firstName) {
+        smsBreaker.run(() -> smsService.sendWelcomeSms(mobileNumber, firstName));
+    }
+
+    public List<CircuitBreaker> getBreakers() {
+        return List.of(emailBreaker, smsBreaker);
+    }
+
+    private void send(String identifier, String otpCode, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        if (type == Otp.OtpType.EMAIL) {
+            emailBreaker.run(() -> emailService.sendOtpEmail(identifier, otpCode, purpose.name()));
+        } else if (type == Otp.OtpType.SMS) {
+            smsBreaker.run(() -> smsService.sendOtpSms(identifier, otpCode, purpose.name()));
+        }
+    }
+
+    private Optional<String> findAlternateIdentifier(String identifier, Otp.OtpType type) {
+        if (type == Otp.OtpType.EMAIL) {
+            return userRepository.findByEmail(identifier).map(User::getMobileNumber);
+        }
+        return userRepository.findByMobileNumber(identifier).map(User::getEmail);
+    }
+}
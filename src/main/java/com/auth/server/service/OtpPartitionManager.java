@@ -0,0 +1,89 @@
+package com.auth.server.service;
+
+import com.auth.server.repository.OtpPartitionRepository;
+import com.auth.server.scheduling.ClusterJobRunner;
+import com.auth.server.sharding.ShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the daily partitions of the otps table rolling: creates partitions
+ * ahead of time and detaches and drops whole days once every code in them
+ * has long expired. This replaces the hourly DELETE of expired rows, so
+ * retention no longer produces dead tuples or vacuum work on the hot table.
+ * With sharding, every shard's otps table is rolled.
+ */
+@Service
+@RequiredArgsConstructor
+public class OtpPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(OtpPartitionManager.class);
+
+    private final OtpPartitionRepository partitionRepository;
+    private final ClusterJobRunner clusterJobRunner;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    @Value("${otp.partitioning.precreate-days:3}")
+    private int precreateDays;
+
+    @Value("${otp.partitioning.retention-days:1}")
+    private int retentionDays;
+
+    @Value("${otp.partitioning.lock-timeout-ms:2000}")
+    private long lockTimeoutMs;
+
+    @Value("${otp.partitioning.interval-ms:3600000}")
+    private long intervalMs;
+
+    // Roll partitions every interval (hourly by default), on one node of the cluster.
+    // The lease is held for 55/60 of the interval at least and 59/60 at most
+    @Scheduled(fixedRateString = "${otp.partitioning.interval-ms:3600000}")
+    public void maintainPartitions() {
+        clusterJobRunner.runExclusively("otp-partitions", Duration.ofMillis(intervalMs * 59 / 60),
+                Duration.ofMillis(intervalMs * 55 / 60), () -> shardRouter.forEachShard(this::roll));
+    }
+
+    private void roll() {
+        // The startup script's clock, so both agree on which day it is
+        LocalDate today = partitionRepository.currentDate();
+        List<LocalDate> existing = partitionRepository.findPartitionDays();
+
+        for (LocalDate day = today; !day.isAfter(today.plusDays(precreateDays)); day = day.plusDays(1)) {
+            if (!existing.contains(day)) {
+                LocalDate partitionDay = day;
+                inTransaction(() -> partitionRepository.createPartition(partitionDay));
+                log.info("Created OTP partition for {}", partitionDay);
+            }
+        }
+
+        // A partition's codes all expired long before its upper bound is retentionDays old
+        LocalDate dropBefore = today.minusDays(Math.max(1, retentionDays));
+        for (LocalDate day : existing) {
+            if (day.isBefore(dropBefore)) {
+                inTransaction(() -> partitionRepository.dropPartition(day));
+                log.info("Dropped OTP partition for {}", day);
+            }
+        }
+
+        if (partitionRepository.defaultPartitionHasRows()) {
+            log.warn("otps_default holds rows outside the daily partitions; check the clock or precreate-days");
+        }
+    }
+
+    private void inTransaction(Runnable ddl) {
+        transactionTemplate.executeWithoutResult(status -> {
+            partitionRepository.setLockTimeout(lockTimeoutMs);
+            ddl.run();
+        });
+    }
+}
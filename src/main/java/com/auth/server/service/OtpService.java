@@ -1,15 +1,26 @@
 package com.auth.server.service;
 
+import com.auth.server.audit.AuditEventType;
+import com.auth.server.audit.AuditLog;
 import com.auth.server.entity.Otp;
 import com.auth.server.repository.OtpRepository;
+import com.auth.server.repository.OtpWriteBatcher;
+import com.auth.server.timing.RequestTiming;
 import com.auth.server.util.OtpGenerator;
-import jakarta.transaction.Transactional;
+import com.auth.server.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
 @Service
@@ -17,18 +28,92 @@ import java.util.Optional;
 public class OtpService {
 
     private final OtpRepository otpRepository;
+    private final OtpWriteBatcher otpWriteBatcher;
     private final OtpGenerator otpGenerator;
-    private final EmailService emailService;
-    private final SmsService smsService;
+    private final OtpDeliveryService otpDeliveryService;
+    private final StatelessOtpService statelessOtpService;
+    private final AuditLog auditLog;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Sends in progress per (identifier, type, purpose); double-submitted requests share one code
+    private SingleFlight<OtpKey, String> sends;
+
+    private Counter coalesced;
 
     @Value("${otp.expiration}")
     private long otpExpirationMs;
 
-    @Transactional
+    @Value("${otp.write-batch.enabled:false}")
+    private boolean writeBatchEnabled;
+
+    @Value("${otp.coalesce.max-wait-ms:10000}")
+    private long coalesceMaxWaitMs;
+
+    @PostConstruct
+    public void init() {
+        sends = new SingleFlight<>(Duration.ofMillis(coalesceMaxWaitMs));
+        coalesced = Counter.builder("otp.requests.coalesced")
+                .description("OTP send requests that shared a concurrent identical request's code")
+                .register(meterRegistry);
+    }
+
     public String generateAndSendOtp(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
-        // Delete any existing OTPs for this identifier and purpose
-        otpRepository.deleteByIdentifierAndTypeAndPurpose(identifier, type, purpose);
+        return send(identifier, type, purpose, false);
+    }
+
+    /**
+     * Like generateAndSendOtp, but refuses if the last code is less than a minute old
+     */
+    public void resendOtp(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        send(identifier, type, purpose, true);
+    }
 
+    private String send(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose, boolean resend) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Inside a caller's transaction (registration) the code only exists once that commits, which
+            // may be arbitrarily late, and the same transaction may send again; neither may hold up others
+            return sendNow(identifier, type, purpose, resend, false);
+        }
+        long start = RequestTiming.start();
+        SingleFlight.Outcome<String> outcome = sends.execute(new OtpKey(identifier, type, purpose),
+                () -> sendNow(identifier, type, purpose, resend, writeBatchEnabled));
+        if (outcome.shared()) {
+            coalesced.increment();
+            // The send itself was timed on the request that made it
+            RequestTiming.stop(RequestTiming.Phase.OTP_SHARED, start);
+        }
+        return outcome.value();
+    }
+
+    // Commits before returning unless it joined a caller's transaction, so a coalesced result is never rolled back
+    private String sendNow(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose, boolean resend,
+                           boolean batched) {
+        if (statelessOtpService.isEnabled()) {
+            if (resend) {
+                statelessOtpService.checkResendInterval(identifier, type, purpose);
+            }
+            return statelessOtpService.send(identifier, type, purpose,
+                    code -> deliver(identifier, code, type, purpose));
+        }
+        if (batched) {
+            // No transaction around the wait for the batcher, so this thread holds no pooled connection
+            // the flusher might need. The check is read-write only to keep it on the primary
+            if (resend) {
+                transactionTemplate.executeWithoutResult(status -> checkResendInterval(identifier, type, purpose));
+            }
+            return generateAndDeliver(identifier, type, purpose, true);
+        }
+        return transactionTemplate.execute(status -> {
+            if (resend) {
+                checkResendInterval(identifier, type, purpose);
+            }
+            return generateAndDeliver(identifier, type, purpose, false);
+        });
+    }
+
+    // Joins the caller's transaction (e.g. registration) if there is one; batched writes only happen without one
+    private String generateAndDeliver(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose, boolean batched) {
         // Generate new OTP
         String otpCode = otpGenerator.generateOtp();
         
@@ -45,55 +130,63 @@ public class OtpService {
         otp.setCreatedAt(LocalDateTime.now());
         otp.setUsed(false);
 
-        otpRepository.save(otp);
-
-        // Send OTP via appropriate channel
-        if (type == Otp.OtpType.EMAIL) {
-            emailService.sendOtpEmail(identifier, otpCode, purpose.name());
-        } else if (type == Otp.OtpType.SMS) {
-            smsService.sendOtpSms(identifier, otpCode, purpose.name());
+        if (batched) {
+            // Delete + insert is group-committed together with concurrent requests
+            long start = RequestTiming.start();
+            try {
+                otpWriteBatcher.replace(otp);
+            } finally {
+                RequestTiming.stop(RequestTiming.Phase.DB, start);
+            }
+        } else {
+            // Delete any existing OTPs for this identifier and purpose
+            otpRepository.deleteByIdentifierAndTypeAndPurposeAndCreatedAtAfter(
+                    identifier, type, purpose, oldestLiveCreatedAt());
+            otpRepository.save(otp);
         }
 
+        deliver(identifier, otpCode, type, purpose);
         return otpCode;
     }
 
-    public boolean verifyOtp(String identifier, String otpCode, Otp.OtpType type, Otp.OtpPurpose purpose) {
-        Optional<Otp> otpOptional = otpRepository.findByIdentifierAndOtpAndTypeAndPurposeAndUsedFalse(
-                identifier, otpCode, type, purpose
-        );
-
-        if (otpOptional.isEmpty()) {
-            return false;
-        }
-
-        Otp otp = otpOptional.get();
+    private void deliver(String identifier, String otpCode, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        // Send OTP via appropriate channel (guarded by per-provider circuit breakers)
+        otpDeliveryService.deliver(identifier, otpCode, type, purpose);
+        auditLog.record(AuditEventType.OTP_SENT, identifier, type + "/" + purpose);
+    }
 
-        // Check if OTP is expired
-        if (otp.isExpired()) {
-            return false;
+    @Transactional
+    public boolean verifyOtp(String identifier, String otpCode, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        // Check and mark used in one step (a conditional UPDATE when stored), so a code can never be consumed twice
+        boolean consumed = statelessOtpService.isEnabled()
+                ? statelessOtpService.verify(identifier, otpCode, type, purpose)
+                : otpRepository.consume(identifier, otpCode, type, purpose, LocalDateTime.now(),
+                        oldestLiveCreatedAt()) > 0;
+        if (consumed) {
+            // The code stays unused if the caller's transaction rolls back
+            auditLog.recordAfterCommit(AuditEventType.OTP_VERIFIED, identifier, type + "/" + purpose);
+        } else {
+            auditLog.record(AuditEventType.OTP_REJECTED, identifier, type + "/" + purpose);
         }
-
-        // Mark OTP as used
-        otp.setUsed(true);
-        otp.setUsedAt(LocalDateTime.now());
-        otpRepository.save(otp);
-
-        return true;
+        return consumed;
     }
 
+    @Transactional(readOnly = true)
     public boolean isOtpValid(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
-        Optional<Otp> otpOptional = otpRepository.findTopByIdentifierAndTypeAndPurposeAndUsedFalseOrderByCreatedAtDesc(
-                identifier, type, purpose
+        if (statelessOtpService.isEnabled()) {
+            return statelessOtpService.isValid(identifier, type, purpose);
+        }
+        Optional<Otp> otpOptional = otpRepository.findTopByIdentifierAndTypeAndPurposeAndUsedFalseAndCreatedAtAfterOrderByCreatedAtDesc(
+                identifier, type, purpose, oldestLiveCreatedAt()
         );
 
         return otpOptional.isPresent() && !otpOptional.get().isExpired();
     }
 
-    @Transactional
-    public void resendOtp(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
+    private void checkResendInterval(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
         // Check if there's a recent valid OTP
-        Optional<Otp> recentOtp = otpRepository.findTopByIdentifierAndTypeAndPurposeAndUsedFalseOrderByCreatedAtDesc(
-                identifier, type, purpose
+        Optional<Otp> recentOtp = otpRepository.findTopByIdentifierAndTypeAndPurposeAndUsedFalseAndCreatedAtAfterOrderByCreatedAtDesc(
+                identifier, type, purpose, oldestLiveCreatedAt()
         );
 
         // If OTP was created less than 1 minute ago, throw exception
@@ -101,15 +194,14 @@ public class OtpService {
             recentOtp.get().getCreatedAt().isAfter(LocalDateTime.now().minusMinutes(1))) {
             throw new RuntimeException("Please wait before requesting a new OTP");
         }
+    }
 
-        // Generate and send new OTP
-        generateAndSendOtp(identifier, type, purpose);
+    // Codes created before this have expired; bounding created_at lets Postgres prune old partitions.
+    // Expired rows are removed by dropping their partition (see OtpPartitionManager)
+    private LocalDateTime oldestLiveCreatedAt() {
+        return LocalDateTime.now().minus(otpExpirationMs, ChronoUnit.MILLIS);
     }
 
-    // Clean up expired OTPs every hour
-    @Scheduled(fixedRate = 3600000) // 1 hour
-    @Transactional
-    public void cleanupExpiredOtps() {
-        otpRepository.deleteByExpiryTimeBefore(LocalDateTime.now());
+    private record OtpKey(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
     }
 }
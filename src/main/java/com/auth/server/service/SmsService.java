@@ -1,10 +1,15 @@
 package com.auth.server.service;
 
+import com.auth.server.timing.RequestTiming;
 import com.twilio.Twilio;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.InvalidRequestException;
+import com.twilio.exception.TwilioException;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.type.PhoneNumber;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -12,6 +17,8 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class SmsService {
 
+    private static final Logger log = LoggerFactory.getLogger(SmsService.class);
+
     @Value("${twilio.account-sid}")
     private String accountSid;
 
@@ -24,12 +31,21 @@ public class SmsService {
     @Value("${app.name}")
     private String appName;
 
+    private volatile boolean twilioInitialized;
+
     /**
-     * Initialize Twilio once at startup
+     * Initialize Twilio on first use rather than at startup, keeping its
+     * HTTP client and Jackson setup off the startup path
      */
-    @PostConstruct
-    public void init() {
-        Twilio.init(accountSid, authToken);
+    private void ensureInitialized() {
+        if (!twilioInitialized) {
+            synchronized (this) {
+                if (!twilioInitialized) {
+                    Twilio.init(accountSid, authToken);
+                    twilioInitialized = true;
+                }
+            }
+        }
     }
 
     /**
@@ -38,14 +54,11 @@ public class SmsService {
     public void sendOtpSms(String mobileNumber, String otp, String purpose) {
         String message = buildSmsMessage(otp, purpose);
             mobileNumber = "+91"+mobileNumber;
+        ensureInitialized();
         try {
-            Message twilioMessage = Message.creator(
-                    new PhoneNumber(mobileNumber),
-                    new PhoneNumber(fromNumber),
-                    message
-            ).create();
+            Message twilioMessage = send(mobileNumber, message);
 
-            System.out.println("OTP SMS sent successfully. SID: " + twilioMessage.getSid());
+            log.info("OTP SMS sent successfully. SID: {}", twilioMessage.getSid());
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to send OTP SMS to " + mobileNumber, e);
@@ -61,20 +74,46 @@ public class SmsService {
                 appName, firstName
         );
 
+        ensureInitialized();
         try {
-            Message twilioMessage = Message.creator(
-                    new PhoneNumber(mobileNumber),
-                    new PhoneNumber(fromNumber),
-                    message
-            ).create();
+            Message twilioMessage = send(mobileNumber, message);
 
-            System.out.println("Welcome SMS sent successfully. SID: " + twilioMessage.getSid());
+            log.info("Welcome SMS sent successfully. SID: {}", twilioMessage.getSid());
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to send welcome SMS to " + mobileNumber, e);
         }
     }
 
+    /**
+     * Whether a send failure means Twilio is unreachable or failing: connection
+     * errors, timeouts and 5xx responses count; 4xx responses such as an
+     * invalid number and requests rejected before sending do not
+     */
+    public static boolean isProviderFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException api) {
+                return api.getStatusCode() == null || api.getStatusCode() >= 500;
+            }
+            if (cause instanceof InvalidRequestException) {
+                return false;
+            }
+            if (cause instanceof TwilioException) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private Message send(String mobileNumber, String message) {
+        long start = RequestTiming.start();
+        try {
+            return Message.creator(new PhoneNumber(mobileNumber), new PhoneNumber(fromNumber), message).create();
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.SMS, start);
+        }
+    }
+
     /**
      * Build OTP message
      */
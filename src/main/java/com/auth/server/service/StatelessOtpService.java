@@ -0,0 +1,172 @@
+package com.auth.server.service;
+
+import com.auth.server.entity.Otp;
+import com.auth.server.util.HmacOtp;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * OTPs without otps rows (otp.mode=stateless). A code is an HMAC of the
+ * identifier, type, purpose and time step, so verifying one is recomputing
+ * the codes of the last otp.expiration worth of steps. Single use and the
+ * resend interval are enforced from memory that is forgotten once it falls
+ * out of that window.
+ *
+ * The memory is per node. Behind a load balancer without sticky routing, a
+ * consumed code can be replayed once on each other node until it expires, and
+ * each node enforces the resend interval on its own.
+ */
+@Service
+public class StatelessOtpService {
+
+    private static final int OTP_LENGTH = 6;
+    private static final long RESEND_INTERVAL_MS = 60_000;
+
+    @Value("${otp.mode:stored}")
+    private String mode;
+
+    @Value("${otp.stateless.secret:}")
+    private String secret;
+
+    @Value("${otp.stateless.step-seconds:60}")
+    private long stepSeconds;
+
+    @Value("${otp.expiration}")
+    private long otpExpirationMs;
+
+    private boolean enabled;
+    private HmacOtp hmacOtp;
+    private long stepMs;
+    private long windowSteps;
+
+    // Newest step consumed per key; codes from that step or earlier are rejected
+    private final ConcurrentHashMap<Key, Long> consumed = new ConcurrentHashMap<>();
+    // Last code sent per key
+    private final ConcurrentHashMap<Key, Issued> issued = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!"stored".equalsIgnoreCase(mode) && !"stateless".equalsIgnoreCase(mode)) {
+            throw new IllegalStateException("otp.mode must be stored or stateless, got " + mode);
+        }
+        enabled = "stateless".equalsIgnoreCase(mode);
+        if (!enabled) {
+            return;
+        }
+
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < 32) {
+            throw new IllegalStateException("otp.stateless.secret must be at least 32 bytes when otp.mode=stateless");
+        }
+        hmacOtp = new HmacOtp(secretBytes, OTP_LENGTH);
+        stepMs = stepSeconds * 1000;
+        windowSteps = Math.max(1, (otpExpirationMs + stepMs - 1) / stepMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Derive a code, hand it to delivery and remember the send once delivery succeeds
+     */
+    public String send(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose, Consumer<String> delivery) {
+        Key key = new Key(identifier, type, purpose);
+        long step = currentStep();
+        // After a code from this step was used, issue the next step's code instead of the spent one
+        Long consumedStep = consumed.get(key);
+        if (consumedStep != null && consumedStep >= step) {
+            step = consumedStep + 1;
+        }
+
+        String otpCode = hmacOtp.code(scope(type, purpose), identifier, step);
+        delivery.accept(otpCode);
+        issued.put(key, new Issued(step, System.currentTimeMillis()));
+        return otpCode;
+    }
+
+    public void checkResendInterval(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        Issued last = issued.get(new Key(identifier, type, purpose));
+        if (last != null && System.currentTimeMillis() - last.sentAt() < RESEND_INTERVAL_MS) {
+            throw new RuntimeException("Please wait before requesting a new OTP");
+        }
+    }
+
+    /**
+     * Accept a code from the last window of steps (or the next step, see send)
+     * and mark it and every earlier code for the key as used
+     */
+    public boolean verify(String identifier, String otpCode, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        Key key = new Key(identifier, type, purpose);
+        String scope = scope(type, purpose);
+        long current = currentStep();
+        Long consumedStep = consumed.get(key);
+        long oldest = current - windowSteps;
+        long newest = current + 1;
+        if (consumedStep != null) {
+            oldest = Math.max(oldest, consumedStep + 1);
+            newest = Math.max(newest, consumedStep + 1);
+        }
+
+        for (long step = newest; step >= oldest; step--) {
+            if (hmacOtp.matches(otpCode, scope, identifier, step)) {
+                return consume(key, step);
+            }
+        }
+        return false;
+    }
+
+    public boolean isValid(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        Key key = new Key(identifier, type, purpose);
+        Issued last = issued.get(key);
+        if (last == null || last.step() < currentStep() - windowSteps) {
+            return false;
+        }
+        Long consumedStep = consumed.get(key);
+        return consumedStep == null || consumedStep < last.step();
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictExpired() {
+        if (!enabled) {
+            return;
+        }
+        long oldestLive = currentStep() - windowSteps;
+        long now = System.currentTimeMillis();
+        consumed.values().removeIf(step -> step < oldestLive);
+        issued.values().removeIf(last -> last.step() < oldestLive && now - last.sentAt() >= RESEND_INTERVAL_MS);
+    }
+
+    // Exactly one of any number of concurrent verifications of the same code wins
+    private boolean consume(Key key, long step) {
+        boolean[] accepted = new boolean[1];
+        consumed.compute(key, (k, previous) -> {
+            if (previous != null && previous >= step) {
+                return previous;
+            }
+            accepted[0] = true;
+            return step;
+        });
+        return accepted[0];
+    }
+
+    private long currentStep() {
+        return System.currentTimeMillis() / stepMs;
+    }
+
+    private static String scope(Otp.OtpType type, Otp.OtpPurpose purpose) {
+        return type.name() + "/" + purpose.name();
+    }
+
+    private record Key(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
+    }
+
+    private record Issued(long step, long sentAt) {
+    }
+}
@@ -0,0 +1,106 @@
+package com.auth.server.service;
+
+import com.auth.server.dto.UserExportFilter;
+import com.auth.server.dto.UserExportRecord;
+import com.auth.server.entity.User;
+import com.auth.server.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streams users as NDJSON through a server-side cursor. Rows are fetched
+ * in fixed size pages and each entity is detached once written, so the
+ * persistence context never grows with the table. With sharding, shards are
+ * exported one after the other, each in id order.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.export.fetch-size:500}")
+    private int fetchSize;
+
+    public void exportUsers(UserExportFilter filter, OutputStream output) throws IOException {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        try {
+            shardRouter.forEachShard(() -> readOnly.executeWithoutResult(status -> {
+                try (Stream<User> users = streamUsers(filter)) {
+                    Iterator<User> iterator = users.iterator();
+                    int written = 0;
+                    while (iterator.hasNext()) {
+                        User user = iterator.next();
+                        output.write(objectMapper.writeValueAsBytes(UserExportRecord.from(user)));
+                        output.write('\n');
+                        entityManager.detach(user);
+
+                        if (++written % fetchSize == 0) {
+                            output.flush();
+                        }
+                    }
+                    output.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Stream<User> streamUsers(UserExportFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<User> query = cb.createQuery(User.class);
+        Root<User> user = query.from(User.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getEmailVerified() != null) {
+            predicates.add(cb.equal(user.get("emailVerified"), filter.getEmailVerified()));
+        }
+        if (filter.getMobileVerified() != null) {
+            predicates.add(cb.equal(user.get("mobileVerified"), filter.getMobileVerified()));
+        }
+        if (filter.getEnabled() != null) {
+            predicates.add(cb.equal(user.get("enabled"), filter.getEnabled()));
+        }
+        if (filter.getCreatedAfter() != null) {
+            predicates.add(cb.greaterThan(user.get("createdAt"), filter.getCreatedAfter()));
+        }
+        if (filter.getLastLoginBefore() != null) {
+            predicates.add(cb.lessThan(user.get("lastLoginAt"), filter.getLastLoginBefore()));
+        }
+
+        query.select(user)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(user.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,365 @@
+package com.auth.server.service;
+
+import com.auth.server.dto.ImportRowResult;
+import com.auth.server.dto.RegistrationRequest;
+import com.auth.server.entity.User;
+import com.auth.server.repository.UserBulkRepository;
+import com.auth.server.sharding.ShardContext;
+import com.auth.server.sharding.ShardIndexRepository;
+import com.auth.server.sharding.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Streams users from NDJSON or CSV into the users table in fixed size chunks.
+ * Each chunk is validated, de-duplicated against the database with one query
+ * per unique column, hashed on a bounded pool of its own and inserted with
+ * one statement.
+ * With sharding, emails and mobile numbers are checked and reserved in the
+ * global index and each shard gets its own batch.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+
+    private static final String[] CSV_COLUMNS =
+            {"firstName", "lastName", "username", "email", "password", "mobileNumber"};
+
+    private final UserBulkRepository userBulkRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final AvailabilityService availabilityService;
+    private final ShardRouter shardRouter;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.hash-threads:4}")
+    private int hashThreads;
+
+    // Shared by all imports so they never take more than hashThreads cores from request handling
+    private ExecutorService hashers;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger next = new AtomicInteger();
+        hashers = Executors.newFixedThreadPool(hashThreads, runnable -> {
+            Thread thread = new Thread(runnable, "import-hash-" + next.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        hashers.shutdownNow();
+    }
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    /**
+     * Import users and write one NDJSON result per input row, followed by a summary line.
+     * Imported users skip OTP delivery; pass verified=true to create them as already verified.
+     */
+    public void importUsers(InputStream input, Format format, boolean verified, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (ImportRowResult.Status status : ImportRowResult.Status.values()) {
+            totals.put(status.name().toLowerCase(), 0L);
+        }
+
+        String[] csvHeader = format == Format.CSV ? parseCsvHeader(reader.readLine()) : null;
+        long lineNumber = format == Format.CSV ? 1 : 0;
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            chunk.add(parseRow(lineNumber, line, csvHeader));
+            if (chunk.size() == batchSize) {
+                writeResults(processChunk(chunk, verified), totals, output);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            writeResults(processChunk(chunk, verified), totals, output);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("summary", true);
+        summary.putAll(totals);
+        output.write(objectMapper.writeValueAsBytes(summary));
+        output.write('\n');
+        output.flush();
+    }
+
+    private List<ImportRowResult> processChunk(List<ImportRow> chunk, boolean verified) {
+        // Validate rows and drop duplicates inside the chunk itself
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        Set<String> seenMobiles = new HashSet<>();
+        List<ImportRow> candidates = new ArrayList<>(chunk.size());
+
+        for (ImportRow row : chunk) {
+            if (row.result != null) {
+                continue;
+            }
+
+            Set<ConstraintViolation<RegistrationRequest>> violations = validator.validate(row.request);
+            if (!violations.isEmpty()) {
+                row.reject(ImportRowResult.Status.INVALID, violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+            } else if (!seenUsernames.add(row.request.getUsername())) {
+                row.reject(ImportRowResult.Status.DUPLICATE, "Username already exists");
+            } else if (!seenEmails.add(row.request.getEmail())) {
+                row.reject(ImportRowResult.Status.DUPLICATE, "Email already exists");
+            } else if (!seenMobiles.add(row.request.getMobileNumber())) {
+                row.reject(ImportRowResult.Status.DUPLICATE, "Mobile number already exists");
+            } else {
+                candidates.add(row);
+            }
+        }
+
+        // De-duplicate against existing users with one query per unique column
+        Set<String> existingUsernames = findExistingUsernames(seenUsernames);
+        Set<String> existingEmails = shardRouter.isEnabled()
+                ? shardRouter.findClaimed(ShardIndexRepository.Kind.EMAIL, seenEmails)
+                : userBulkRepository.findExistingEmails(seenEmails);
+        Set<String> existingMobiles = shardRouter.isEnabled()
+                ? shardRouter.findClaimed(ShardIndexRepository.Kind.MOBILE, seenMobiles)
+                : userBulkRepository.findExistingMobileNumbers(seenMobiles);
+
+        List<ImportRow> inserts = new ArrayList<>(candidates.size());
+        for (ImportRow row : candidates) {
+            if (existingUsernames.contains(row.request.getUsername())) {
+                row.reject(ImportRowResult.Status.DUPLICATE, "Username already exists");
+            } else if (existingEmails.contains(row.request.getEmail())) {
+                row.reject(ImportRowResult.Status.DUPLICATE, "Email already exists");
+            } else if (existingMobiles.contains(row.request.getMobileNumber())) {
+                row.reject(ImportRowResult.Status.DUPLICATE, "Mobile number already exists");
+            } else {
+                inserts.add(row);
+            }
+        }
+
+        // One batch per shard (a single one without sharding); the null key is spring.datasource
+        Map<String, List<ImportRow>> byShard = new LinkedHashMap<>();
+        for (ImportRow row : inserts) {
+            ShardIndexRepository.Kind taken = shardRouter.claim(
+                    row.request.getUsername(), row.request.getEmail(), row.request.getMobileNumber());
+            if (taken != null) {
+                row.reject(ImportRowResult.Status.DUPLICATE, taken == ShardIndexRepository.Kind.EMAIL
+                        ? "Email already exists" : "Mobile number already exists");
+                continue;
+            }
+            try {
+                byShard.computeIfAbsent(shardRouter.shardOf(row.request.getUsername(), true), shard -> new ArrayList<>())
+                        .add(row);
+            } catch (RuntimeException e) {
+                release(row);
+                row.reject(ImportRowResult.Status.FAILED, e.getMessage());
+            }
+        }
+
+        byShard.forEach((shard, rows) -> insert(shard, rows, verified));
+
+        return chunk.stream().map(row -> row.result).toList();
+    }
+
+    private void insert(String shard, List<ImportRow> rows, boolean verified) {
+        // BCrypt dominates the cost of an import
+        LocalDateTime now = LocalDateTime.now();
+        List<CompletableFuture<User>> hashed = rows.stream()
+                .map(row -> CompletableFuture.supplyAsync(() -> toUser(row.request, verified, now), hashers))
+                .toList();
+
+        List<User> users;
+        Set<Long> inserted;
+        try (ShardContext.Scope scope = shardRouter.onShard(shard)) {
+            users = hashed.stream().map(CompletableFuture::join).toList();
+            inserted = transactionTemplate.execute(status -> userBulkRepository.insertBatch(users));
+        } catch (RuntimeException e) {
+            rows.forEach(this::release);
+            throw e;
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            if (inserted == null || !inserted.contains(users.get(i).getId())) {
+                release(row);
+                row.reject(ImportRowResult.Status.DUPLICATE, "User already exists");
+            } else {
+                availabilityService.record(row.request.getUsername(), row.request.getEmail());
+                row.result = new ImportRowResult(row.line, row.request.getUsername(),
+                        ImportRowResult.Status.CREATED, null);
+            }
+        }
+    }
+
+    private Set<String> findExistingUsernames(Set<String> usernames) {
+        if (!shardRouter.isEnabled()) {
+            return userBulkRepository.findExistingUsernames(usernames);
+        }
+
+        Map<String, List<String>> byShard = new LinkedHashMap<>();
+        for (String username : usernames) {
+            byShard.computeIfAbsent(shardRouter.shardOf(username, false), shard -> new ArrayList<>()).add(username);
+        }
+        Set<String> existing = new HashSet<>();
+        byShard.forEach((shard, names) -> {
+            try (ShardContext.Scope scope = shardRouter.onShard(shard)) {
+                existing.addAll(userBulkRepository.findExistingUsernames(names));
+            }
+        });
+        return existing;
+    }
+
+    private void release(ImportRow row) {
+        shardRouter.release(row.request.getUsername(), row.request.getEmail(), row.request.getMobileNumber());
+    }
+
+    private User toUser(RegistrationRequest request, boolean verified, LocalDateTime now) {
+        User user = new User();
+        user.setFirstName(request.getFirstName());
+        user.setLastName(request.getLastName());
+        user.setUsername(request.getUsername());
+        user.setEmail(request.getEmail());
+        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setMobileNumber(request.getMobileNumber());
+        user.setEmailVerified(verified);
+        user.setMobileVerified(verified);
+        user.setEnabled(verified);
+        user.setAccountNonLocked(true);
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        return user;
+    }
+
+    private void writeResults(List<ImportRowResult> results, Map<String, Long> totals, OutputStream output) throws IOException {
+        for (ImportRowResult result : results) {
+            totals.merge(result.getStatus().name().toLowerCase(), 1L, Long::sum);
+            output.write(objectMapper.writeValueAsBytes(result));
+            output.write('\n');
+        }
+        output.flush();
+    }
+
+    private ImportRow parseRow(long lineNumber, String line, String[] csvHeader) {
+        try {
+            RegistrationRequest request;
+            if (csvHeader == null) {
+                request = objectMapper.readValue(line, RegistrationRequest.class);
+            } else {
+                List<String> values = splitCsvLine(line);
+                Map<String, String> fields = new LinkedHashMap<>();
+                for (int i = 0; i < csvHeader.length && i < values.size(); i++) {
+                    fields.put(csvHeader[i], values.get(i));
+                }
+                request = objectMapper.convertValue(fields, RegistrationRequest.class);
+            }
+            return new ImportRow(lineNumber, request);
+        } catch (Exception e) {
+            ImportRow row = new ImportRow(lineNumber, new RegistrationRequest());
+            row.reject(ImportRowResult.Status.INVALID, "Unparseable row");
+            return row;
+        }
+    }
+
+    private String[] parseCsvHeader(String headerLine) {
+        if (headerLine == null) {
+            return CSV_COLUMNS;
+        }
+
+        String[] header = splitCsvLine(headerLine).stream().map(String::trim).toArray(String[]::new);
+        for (String column : CSV_COLUMNS) {
+            if (!List.of(header).contains(column)) {
+                throw new RuntimeException("CSV header must contain: " + String.join(",", CSV_COLUMNS));
+            }
+        }
+        return header;
+    }
+
+    // RFC 4180 style split: quoted fields may contain commas and "" escapes
+    private List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static class ImportRow {
+        private final long line;
+        private final RegistrationRequest request;
+        private ImportRowResult result;
+
+        private ImportRow(long line, RegistrationRequest request) {
+            this.line = line;
+            this.request = request;
+        }
+
+        private void reject(ImportRowResult.Status status, String message) {
+            this.result = new ImportRowResult(line, request.getUsername(), status, message);
+        }
+    }
+}
@@ -1,17 +1,30 @@
 package com.auth.server.service;
 
+import com.auth.server.audit.AuditEventType;
+import com.auth.server.audit.AuditLog;
 import com.auth.server.dto.*;
 import com.auth.server.entity.Otp;
 import com.auth.server.entity.User;
 import com.auth.server.repository.UserRepository;
+import com.auth.server.security.Role;
+import com.auth.server.sharding.ShardContext;
+import com.auth.server.sharding.ShardIndexRepository;
+import com.auth.server.sharding.ShardRouter;
+import com.auth.server.timing.RequestTiming;
 import com.auth.server.util.JwtUtil;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -20,51 +33,74 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final OtpService otpService;
-    private final EmailService emailService;
-    private final SmsService smsService;
+    private final OtpDeliveryService otpDeliveryService;
     private final JwtUtil jwtUtil;
+    private final TransactionTemplate transactionTemplate;
+    private final AvailabilityService availabilityService;
+    private final AuditLog auditLog;
+    private final ShardRouter shardRouter;
 
-    @Transactional
     public ApiResponse registerUser(RegistrationRequest request) {
-        // Check if username already exists
-        if (userRepository.existsByUsername(request.getUsername())) {
-            return new ApiResponse(false, "Username already exists");
-        }
-
-        // Check if email already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            return new ApiResponse(false, "Email already exists");
-        }
-
-        // Check if mobile number already exists
-        if (userRepository.existsByMobileNumber(request.getMobileNumber())) {
-            return new ApiResponse(false, "Mobile number already exists");
-        }
-
         // Create new user
         User user = new User();
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(encodePassword(request.getPassword()));
         user.setMobileNumber(request.getMobileNumber());
         user.setEmailVerified(false);
         user.setMobileVerified(false);
         user.setEnabled(false);
         user.setAccountNonLocked(true);
 
-        userRepository.save(user);
-
-        // Send OTP to email and mobile
-        otpService.generateAndSendOtp(user.getEmail(), Otp.OtpType.EMAIL, Otp.OtpPurpose.REGISTRATION);
-        otpService.generateAndSendOtp(user.getMobileNumber(), Otp.OtpType.SMS, Otp.OtpPurpose.REGISTRATION);
+        try (ShardContext.Scope shard = shardRouter.forUsername(user.getUsername())) {
+            // With sharding, email and mobile number are reserved across all shards first
+            ShardIndexRepository.Kind taken = shardRouter.claim(user.getUsername(), user.getEmail(), user.getMobileNumber());
+            if (taken != null) {
+                String message = taken == ShardIndexRepository.Kind.EMAIL ? "Email already exists" : "Mobile number already exists";
+                auditLog.record(AuditEventType.REGISTRATION_FAILED, user.getUsername(), message);
+                return new ApiResponse(false, message);
+            }
+            return registerOnShard(user);
+        }
+    }
 
-        return new ApiResponse(true, "Registration successful. Please verify your email and mobile number.");
+    private ApiResponse registerOnShard(User user) {
+        try {
+            ApiResponse response = transactionTemplate.execute(status -> {
+                // The unique constraints on users are the real guard against duplicates,
+                // so insert optimistically instead of checking each column first
+                userRepository.saveAndFlush(user);
+
+                // Send OTP to email and mobile
+                otpService.generateAndSendOtp(user.getEmail(), Otp.OtpType.EMAIL, Otp.OtpPurpose.REGISTRATION);
+                otpService.generateAndSendOtp(user.getMobileNumber(), Otp.OtpType.SMS, Otp.OtpPurpose.REGISTRATION);
+
+                return new ApiResponse(true, "Registration successful. Please verify your email and mobile number.");
+            });
+
+            availabilityService.record(user.getUsername(), user.getEmail());
+            auditLog.record(AuditEventType.REGISTERED, user.getUsername(), null);
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            shardRouter.release(user.getUsername(), user.getEmail(), user.getMobileNumber());
+            String message = getDuplicateMessage(e);
+            auditLog.record(AuditEventType.REGISTRATION_FAILED, user.getUsername(), message);
+            return new ApiResponse(false, message);
+        } catch (RuntimeException e) {
+            shardRouter.release(user.getUsername(), user.getEmail(), user.getMobileNumber());
+            throw e;
+        }
     }
 
-    @Transactional
     public ApiResponse verifyEmail(OtpVerificationRequest request) {
+        try (ShardContext.Scope shard = shardRouter.forEmail(request.getIdentifier())) {
+            return transactionTemplate.execute(status -> verifyEmailOnShard(request));
+        }
+    }
+
+    private ApiResponse verifyEmailOnShard(OtpVerificationRequest request) {
         boolean isValid = otpService.verifyOtp(
                 request.getIdentifier(),
                 request.getOtp(),
@@ -73,12 +109,12 @@ public class UserService {
         );
 
         if (!isValid) {
-            return new ApiResponse(false, "Invalid or expired OTP");
+            return ErrorResponses.INVALID_OTP;
         }
 
         Optional<User> userOptional = userRepository.findByEmail(request.getIdentifier());
         if (userOptional.isEmpty()) {
-            return new ApiResponse(false, "User not found");
+            return ErrorResponses.USER_NOT_FOUND;
         }
 
         User user = userOptional.get();
@@ -87,16 +123,22 @@ public class UserService {
         // If both email and mobile are verified, enable the account
         if (user.isMobileVerified()) {
             user.setEnabled(true);
-            emailService.sendWelcomeEmail(user.getEmail(), user.getFirstName());
+            otpDeliveryService.sendWelcomeEmail(user.getEmail(), user.getFirstName());
         }
 
         userRepository.save(user);
+        auditLog.recordAfterCommit(AuditEventType.EMAIL_VERIFIED, user.getUsername(), null);
 
         return new ApiResponse(true, "Email verified successfully");
     }
 
-    @Transactional
     public ApiResponse verifyMobile(OtpVerificationRequest request) {
+        try (ShardContext.Scope shard = shardRouter.forMobile(request.getIdentifier())) {
+            return transactionTemplate.execute(status -> verifyMobileOnShard(request));
+        }
+    }
+
+    private ApiResponse verifyMobileOnShard(OtpVerificationRequest request) {
         boolean isValid = otpService.verifyOtp(
                 request.getIdentifier(),
                 request.getOtp(),
@@ -105,12 +147,12 @@ public class UserService {
         );
 
         if (!isValid) {
-            return new ApiResponse(false, "Invalid or expired OTP");
+            return ErrorResponses.INVALID_OTP;
         }
 
         Optional<User> userOptional = userRepository.findByMobileNumber(request.getIdentifier());
         if (userOptional.isEmpty()) {
-            return new ApiResponse(false, "User not found");
+            return ErrorResponses.USER_NOT_FOUND;
         }
 
         User user = userOptional.get();
@@ -119,76 +161,125 @@ public class UserService {
         // If both email and mobile are verified, enable the account
         if (user.isEmailVerified()) {
             user.setEnabled(true);
-            smsService.sendWelcomeSms(user.getMobileNumber(), user.getFirstName());
+            otpDeliveryService.sendWelcomeSms(user.getMobileNumber(), user.getFirstName());
         }
 
         userRepository.save(user);
+        auditLog.recordAfterCommit(AuditEventType.MOBILE_VERIFIED, user.getUsername(), null);
 
         return new ApiResponse(true, "Mobile number verified successfully");
     }
 
-    public AuthResponse login(LoginRequest request) {
+    // Read-write so the credentials come from the primary (fresh enabled/locked flags);
+    // last_login_at is set with a single UPDATE rather than by saving a loaded entity.
+    // Logins keep working while a resharding move has the user's bucket offline for
+    // writes; a last_login_at written during the move may be lost
+    public LoginResult login(LoginRequest request) {
+        try (ShardContext.Scope shard = shardRouter.forUsernameOrEmailReadOnly(request.getUsername())) {
+            return transactionTemplate.execute(status -> loginOnShard(request));
+        }
+    }
+
+    private LoginResult loginOnShard(LoginRequest request) {
         // Find user by username or email
-        Optional<User> userOptional = userRepository.findByUsernameOrEmail(
-                request.getUsername(),
-                request.getUsername()
-        );
+        Optional<UserCredentials> userOptional = userRepository.findCredentialsByUsernameOrEmail(request.getUsername());
 
         if (userOptional.isEmpty()) {
-            throw new RuntimeException("Invalid username or password");
+            return loginFailed(request.getUsername(), LoginResult.INVALID_CREDENTIALS);
         }
 
-        User user = userOptional.get();
+        UserCredentials user = userOptional.get();
 
         // Check if password matches
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Invalid username or password");
+        if (!passwordMatches(request.getPassword(), user.password())) {
+            return loginFailed(request.getUsername(), LoginResult.INVALID_CREDENTIALS);
         }
 
         // Check if account is enabled
-        if (!user.isEnabled()) {
-            throw new RuntimeException("Account not verified. Please verify your email and mobile number.");
+        if (!user.enabled()) {
+            return loginFailed(request.getUsername(), LoginResult.NOT_VERIFIED);
         }
 
         // Check if account is locked
-        if (!user.isAccountNonLocked()) {
-            throw new RuntimeException("Account is locked. Please contact support.");
+        if (!user.accountNonLocked()) {
+            return loginFailed(request.getUsername(), LoginResult.LOCKED);
         }
 
         // Update last login time
-        user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        userRepository.updateLastLoginAt(user.id(), LocalDateTime.now());
 
         // Generate JWT token
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user.username());
+        auditLog.recordAfterCommit(AuditEventType.LOGIN_SUCCEEDED, user.username(), null);
+
+        return LoginResult.success(new AuthResponse(token, user.username(), user.email(), "Login successful"));
+    }
 
-        return new AuthResponse(token, user.getUsername(), user.getEmail(), "Login successful");
+    private LoginResult loginFailed(String username, LoginResult result) {
+        auditLog.record(AuditEventType.LOGIN_FAILED, username, result.getStatus().name());
+        return result;
     }
 
-    @Transactional
     public ApiResponse changePassword(String username, ChangePasswordRequest request) {
+        try (ShardContext.Scope shard = shardRouter.forUsername(username)) {
+            return transactionTemplate.execute(status -> changePasswordOnShard(username, request));
+        }
+    }
+
+    private ApiResponse changePasswordOnShard(String username, ChangePasswordRequest request) {
         Optional<User> userOptional = userRepository.findByUsername(username);
         
         if (userOptional.isEmpty()) {
-            return new ApiResponse(false, "User not found");
+            return ErrorResponses.USER_NOT_FOUND;
         }
 
         User user = userOptional.get();
 
         // Verify old password
-        if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
-            return new ApiResponse(false, "Old password is incorrect");
+        if (!passwordMatches(request.getOldPassword(), user.getPassword())) {
+            auditLog.record(AuditEventType.PASSWORD_CHANGE_FAILED, username, "OLD_PASSWORD_INCORRECT");
+            return ErrorResponses.OLD_PASSWORD_INCORRECT;
         }
 
         // Update password
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        user.setPassword(encodePassword(request.getNewPassword()));
         userRepository.save(user);
+        auditLog.recordAfterCommit(AuditEventType.PASSWORD_CHANGED, username, null);
 
         return new ApiResponse(true, "Password changed successfully");
     }
 
-    @Transactional
+    /**
+     * Replace a user's roles. Only enabled accounts, i.e. with verified email and mobile number,
+     * can be given any: a role is never attached to a name that someone could still register
+     */
+    public ApiResponse setRoles(String username, Set<Role> roles) {
+        try (ShardContext.Scope shard = shardRouter.forUsername(username)) {
+            return transactionTemplate.execute(status -> {
+                Optional<User> userOptional = userRepository.findByUsername(username);
+                if (userOptional.isEmpty()) {
+                    return ErrorResponses.USER_NOT_FOUND;
+                }
+                User user = userOptional.get();
+                if (!roles.isEmpty() && !user.isEnabled()) {
+                    return new ApiResponse(false, "Roles can only be granted to verified, enabled accounts");
+                }
+                user.setRoles(Role.format(roles));
+                userRepository.save(user);
+                auditLog.recordAfterCommit(AuditEventType.ROLES_CHANGED, username, user.getRoles());
+                return new ApiResponse(true, "Roles updated", roles);
+            });
+        }
+    }
+
     public ApiResponse forgotPassword(ForgotPasswordRequest request) {
+        try (ShardContext.Scope shard = shardRouter.forUsernameOrEmail(request.getIdentifier())) {
+            // Only a lookup and the OTP send, which runs in a transaction of its own and can be batched
+            return forgotPasswordOnShard(request);
+        }
+    }
+
+    private ApiResponse forgotPasswordOnShard(ForgotPasswordRequest request) {
         // Find user by email or username
         Optional<User> userOptional = userRepository.findByUsernameOrEmail(
                 request.getIdentifier(),
@@ -196,6 +287,7 @@ public class UserService {
         );
 
         if (userOptional.isEmpty()) {
+            auditLog.record(AuditEventType.PASSWORD_RESET_REQUESTED, request.getIdentifier(), "UNKNOWN_ACCOUNT");
             // Don't reveal if user exists or not for security
             return new ApiResponse(true, "If the account exists, an OTP has been sent to your registered email");
         }
@@ -204,39 +296,94 @@ public class UserService {
 
         // Send OTP to user's email
         otpService.generateAndSendOtp(user.getEmail(), Otp.OtpType.EMAIL, Otp.OtpPurpose.FORGOT_PASSWORD);
+        auditLog.record(AuditEventType.PASSWORD_RESET_REQUESTED, user.getUsername(), null);
 
         return new ApiResponse(true, "OTP has been sent to your registered email");
     }
 
-    @Transactional
     public ApiResponse resetPassword(String email, String otp, String newPassword) {
+        try (ShardContext.Scope shard = shardRouter.forEmail(email)) {
+            return transactionTemplate.execute(status -> resetPasswordOnShard(email, otp, newPassword));
+        }
+    }
+
+    private ApiResponse resetPasswordOnShard(String email, String otp, String newPassword) {
         // Verify OTP
         boolean isValid = otpService.verifyOtp(email, otp, Otp.OtpType.EMAIL, Otp.OtpPurpose.FORGOT_PASSWORD);
 
         if (!isValid) {
-            return new ApiResponse(false, "Invalid or expired OTP");
+            return ErrorResponses.INVALID_OTP;
         }
 
         // Find user by email
         Optional<User> userOptional = userRepository.findByEmail(email);
         if (userOptional.isEmpty()) {
-            return new ApiResponse(false, "User not found");
+            return ErrorResponses.USER_NOT_FOUND;
         }
 
         // Update password
         User user = userOptional.get();
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(encodePassword(newPassword));
         userRepository.save(user);
+        auditLog.recordAfterCommit(AuditEventType.PASSWORD_RESET, user.getUsername(), null);
 
         return new ApiResponse(true, "Password reset successfully");
     }
 
+    private String encodePassword(String rawPassword) {
+        long start = RequestTiming.start();
+        try {
+            return passwordEncoder.encode(rawPassword);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.BCRYPT, start);
+        }
+    }
+
+    private boolean passwordMatches(String rawPassword, String encodedPassword) {
+        long start = RequestTiming.start();
+        try {
+            return passwordEncoder.matches(rawPassword, encodedPassword);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.BCRYPT, start);
+        }
+    }
+
+    // Maps the violated unique constraint, taken from the server's error fields rather than its
+    // localized message text
+    private String getDuplicateMessage(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PSQLException psql && psql.getServerErrorMessage() != null
+                    && PSQLState.UNIQUE_VIOLATION.getState().equals(psql.getSQLState())) {
+                return switch (String.valueOf(psql.getServerErrorMessage().getConstraint())) {
+                    case User.USERNAME_KEY -> "Username already exists";
+                    case User.EMAIL_KEY -> "Email already exists";
+                    case User.MOBILE_NUMBER_KEY -> "Mobile number already exists";
+                    default -> "User already exists";
+                };
+            }
+        }
+        return "User already exists";
+    }
+
+    public ApiResponse checkAvailability(String username, String email) {
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null) {
+            availability.put("username", availabilityService.isUsernameAvailable(username));
+        }
+        if (email != null) {
+            availability.put("email", availabilityService.isEmailAvailable(email));
+        }
+        return new ApiResponse(true, "Availability checked", availability);
+    }
+
     public ApiResponse resendOtp(String identifier, String type, String purpose) {
         try {
             Otp.OtpType otpType = Otp.OtpType.valueOf(type.toUpperCase());
             Otp.OtpPurpose otpPurpose = Otp.OtpPurpose.valueOf(purpose.toUpperCase());
 
-            otpService.resendOtp(identifier, otpType, otpPurpose);
+            try (ShardContext.Scope shard = shardRouter.forOtpIdentifier(identifier, otpType)) {
+                otpService.resendOtp(identifier, otpType, otpPurpose);
+            }
             return new ApiResponse(true, "OTP resent successfully");
         } catch (Exception e) {
             return new ApiResponse(false, e.getMessage());
@@ -0,0 +1,41 @@
+package com.auth.server.sharding;
+
+/**
+ * Per-thread shard selection read by ShardRoutingDataSource. No shard (null)
+ * means the global database. Selections nest: closing a scope restores
+ * whatever was selected before it was opened.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    // Returned by the router when sharding is disabled
+    public static final Scope NONE = () -> {
+    };
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static Scope use(String shard) {
+        String previous = CURRENT.get();
+        set(shard);
+        return () -> set(previous);
+    }
+
+    private static void set(String shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
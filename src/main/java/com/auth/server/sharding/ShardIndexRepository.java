@@ -0,0 +1,124 @@
+package com.auth.server.sharding;
+
+import com.auth.server.timing.RequestTiming;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The global user_shard_index table: email and mobile number to the bucket of
+ * the user owning them. Rows store the bucket rather than the shard, so moving
+ * a bucket never touches the index. The primary key makes both values unique
+ * across shards; registration claims them here before inserting the user.
+ * Lookups on the request path are timed as RequestTiming.Phase.DB.
+ */
+public class ShardIndexRepository {
+
+    public enum Kind {
+        EMAIL("email"),
+        MOBILE("mobile_number");
+
+        private final String column;
+
+        Kind(String column) {
+            this.column = column;
+        }
+
+        // Matching column of the users table on the shards
+        public String getColumn() {
+            return column;
+        }
+    }
+
+    public record Claim(int bucket, LocalDateTime claimedAt) {
+    }
+
+    private final JdbcTemplate global;
+
+    public ShardIndexRepository(DataSource global) {
+        this.global = new JdbcTemplate(global);
+    }
+
+    public Optional<Claim> find(Kind kind, String value) {
+        long start = RequestTiming.start();
+        try {
+            List<Claim> claims = global.query("SELECT bucket, claimed_at FROM user_shard_index WHERE kind = ? AND value = ?",
+                    (rs, rowNum) -> new Claim(rs.getInt(1), rs.getTimestamp(2).toLocalDateTime()),
+                    kind.name(), value);
+            return claims.stream().findFirst();
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.DB, start);
+        }
+    }
+
+    /**
+     * Returns false if the value already belongs to someone
+     */
+    public boolean claim(Kind kind, String value, int bucket) {
+        long start = RequestTiming.start();
+        try {
+            return global.update("INSERT INTO user_shard_index (kind, value, bucket) VALUES (?, ?, ?) ON CONFLICT DO NOTHING",
+                    kind.name(), value, bucket) == 1;
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.DB, start);
+        }
+    }
+
+    /**
+     * Remove a claim, but only the one made for this bucket
+     */
+    public void release(Kind kind, String value, int bucket) {
+        long start = RequestTiming.start();
+        try {
+            global.update("DELETE FROM user_shard_index WHERE kind = ? AND value = ? AND bucket = ?",
+                    kind.name(), value, bucket);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.DB, start);
+        }
+    }
+
+    /**
+     * Remove a claim unless it was renewed since it was read
+     */
+    public boolean releaseIfUnchanged(Kind kind, String value, Claim claim) {
+        return global.update("DELETE FROM user_shard_index WHERE kind = ? AND value = ? AND bucket = ? AND claimed_at = ?",
+                kind.name(), value, claim.bucket(), Timestamp.valueOf(claim.claimedAt())) == 1;
+    }
+
+    /**
+     * Insert or correct index rows, e.g. when rebuilding the index from the shards
+     */
+    public void upsert(Kind kind, List<Object[]> valueAndBucket) {
+        global.batchUpdate("INSERT INTO user_shard_index (kind, value, bucket) VALUES ('" + kind.name() + "', ?, ?) "
+                + "ON CONFLICT (kind, value) DO UPDATE SET bucket = EXCLUDED.bucket", valueAndBucket);
+    }
+
+    public Set<String> findExisting(Kind kind, Collection<String> values) {
+        Set<String> existing = new HashSet<>();
+        if (values.isEmpty()) {
+            return existing;
+        }
+
+        long start = RequestTiming.start();
+        try {
+            global.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT value FROM user_shard_index WHERE kind = ? AND value = ANY(?)");
+                ps.setString(1, kind.name());
+                ps.setArray(2, con.createArrayOf("varchar", values.toArray()));
+                return ps;
+            }, (RowCallbackHandler) rs -> existing.add(rs.getString(1)));
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.DB, start);
+        }
+        return existing;
+    }
+}
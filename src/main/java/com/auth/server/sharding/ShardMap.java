@@ -0,0 +1,200 @@
+package com.auth.server.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Which shard holds each bucket of usernames. A username's bucket is
+ * CRC32C(username) mod app.sharding.buckets and never changes; resharding
+ * moves whole buckets between shards by rewriting user_shard_buckets.
+ *
+ * Every node caches the map and reloads it every map-refresh-interval-ms.
+ * A node that has not managed to reload it for two intervals stops routing,
+ * so a move can rely on every node having seen a state change once it has
+ * waited that long (see ShardRebalancer).
+ */
+public class ShardMap {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardMap.class);
+
+    public static final String ACTIVE = "ACTIVE";
+    public static final String MOVING = "MOVING";
+
+    private final JdbcTemplate global;
+    private final ShardRoutingDataSource routingDataSource;
+    private final int bucketCount;
+    private final long refreshIntervalMs;
+
+    private volatile Snapshot snapshot;
+
+    public ShardMap(ShardRoutingDataSource routingDataSource, int bucketCount, long refreshIntervalMs) {
+        this.global = new JdbcTemplate(routingDataSource.getGlobal());
+        this.routingDataSource = routingDataSource;
+        this.bucketCount = bucketCount;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    public static int bucketOf(String username, int bucketCount) {
+        CRC32C crc = new CRC32C();
+        crc.update(username.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % bucketCount);
+    }
+
+    public int bucketOf(String username) {
+        return bucketOf(username, bucketCount);
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getRefreshIntervalMs() {
+        return refreshIntervalMs;
+    }
+
+    public List<String> getShardNames() {
+        return routingDataSource.getShardNames();
+    }
+
+    public DataSource dataSource(String shard) {
+        return routingDataSource.getShard(shard);
+    }
+
+    /**
+     * Register the configured shards and, on first start, spread the buckets
+     * over them round robin. Returns the stable numeric id of every shard.
+     */
+    public Map<String, Integer> initialize() {
+        for (String name : getShardNames()) {
+            global.update("INSERT INTO user_shards (name) VALUES (?) ON CONFLICT (name) DO NOTHING", name);
+        }
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        global.query("SELECT name, id FROM user_shards ORDER BY id",
+                (RowCallbackHandler) rs -> ids.put(rs.getString(1), rs.getInt(2)));
+
+        Integer existing = global.queryForObject("SELECT count(*) FROM user_shard_buckets", Integer.class);
+        if (existing == null || existing == 0) {
+            List<String> names = getShardNames();
+            List<Object[]> rows = new ArrayList<>(bucketCount);
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                rows.add(new Object[]{bucket, names.get(bucket % names.size())});
+            }
+            global.batchUpdate("INSERT INTO user_shard_buckets (bucket, shard) VALUES (?, ?) ON CONFLICT DO NOTHING", rows);
+            log.info("Initialised shard map: {} buckets over {}", bucketCount, names);
+        } else if (existing != bucketCount) {
+            throw new IllegalStateException("app.sharding.buckets is " + bucketCount + " but the shard map has "
+                    + existing + " buckets; the bucket count cannot change once the map exists");
+        }
+
+        load();
+        for (String shard : snapshot.shards()) {
+            if (!getShardNames().contains(shard)) {
+                throw new IllegalStateException("Shard " + shard + " holds buckets but is not configured in app.sharding.shards");
+            }
+        }
+        return ids;
+    }
+
+    @Scheduled(initialDelayString = "${app.sharding.map-refresh-interval-ms:5000}",
+            fixedDelayString = "${app.sharding.map-refresh-interval-ms:5000}")
+    public void refresh() {
+        try {
+            load();
+        } catch (Exception e) {
+            log.warn("Could not reload the shard map: {}", e.getMessage());
+        }
+    }
+
+    private void load() {
+        String[] shards = new String[bucketCount];
+        boolean[] moving = new boolean[bucketCount];
+        global.query("SELECT bucket, shard, state FROM user_shard_buckets", (RowCallbackHandler) rs -> {
+            int bucket = rs.getInt(1);
+            shards[bucket] = rs.getString(2);
+            moving[bucket] = MOVING.equals(rs.getString(3));
+        });
+        snapshot = new Snapshot(shards, moving, System.currentTimeMillis());
+    }
+
+    /**
+     * The shard holding a bucket. Writes to a bucket that is being moved are
+     * refused; reads keep going to its source until the move completes.
+     */
+    public String shardFor(int bucket, boolean write) {
+        Snapshot current = snapshot;
+        if (System.currentTimeMillis() - current.loadedAt() > 2 * refreshIntervalMs) {
+            throw new RuntimeException("Shard map is out of date, please retry shortly");
+        }
+        if (write && current.moving()[bucket]) {
+            throw new RuntimeException("Account is being moved to another shard, please retry shortly");
+        }
+        return current.shards()[bucket];
+    }
+
+    public List<Bucket> loadBuckets() {
+        return global.query("SELECT bucket, shard, state, target, previous_shard FROM user_shard_buckets ORDER BY bucket",
+                (rs, rowNum) -> new Bucket(rs.getInt(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5)));
+    }
+
+    /**
+     * Take buckets offline for writes ahead of copying them to target
+     */
+    public int markMoving(Collection<Integer> buckets, String source, String target) {
+        return update("UPDATE user_shard_buckets SET state = 'MOVING', target = ?, updated_at = now() "
+                + "WHERE shard = ? AND state = 'ACTIVE' AND bucket = ANY(?)", buckets, target, source);
+    }
+
+    /**
+     * Point buckets at their new shard and remember the source until its copies are deleted
+     */
+    public int completeMove(Collection<Integer> buckets, String source, String target) {
+        return update("UPDATE user_shard_buckets SET shard = ?, state = 'ACTIVE', target = NULL, previous_shard = ?, "
+                + "updated_at = now() WHERE shard = ? AND state = 'MOVING' AND bucket = ANY(?)",
+                buckets, target, source, source);
+    }
+
+    /**
+     * Give buckets back to their source after a failed copy
+     */
+    public int abortMove(Collection<Integer> buckets) {
+        return update("UPDATE user_shard_buckets SET state = 'ACTIVE', target = NULL, updated_at = now() "
+                + "WHERE state = 'MOVING' AND bucket = ANY(?)", buckets);
+    }
+
+    public int cleanupDone(Collection<Integer> buckets) {
+        return update("UPDATE user_shard_buckets SET previous_shard = NULL, updated_at = now() WHERE bucket = ANY(?)",
+                buckets);
+    }
+
+    // The bucket array is always the last parameter
+    private int update(String sql, Collection<Integer> buckets, String... values) {
+        return global.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            for (int i = 0; i < values.length; i++) {
+                ps.setString(i + 1, values[i]);
+            }
+            ps.setArray(values.length + 1, con.createArrayOf("integer", buckets.toArray()));
+            return ps;
+        });
+    }
+
+    public record Bucket(int bucket, String shard, String state, String target, String previousShard) {
+    }
+
+    private record Snapshot(String[] shards, boolean[] moving, long loadedAt) {
+    }
+}
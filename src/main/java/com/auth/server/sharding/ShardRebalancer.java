@@ -0,0 +1,418 @@
+package com.auth.server.sharding;
+
+import com.auth.server.dto.ShardStatus;
+import com.auth.server.scheduling.ClusterJobRunner;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Online resharding: moves buckets of users (and their live OTPs) between
+ * shards while the application keeps serving traffic. Each step moves a few
+ * buckets:
+ *
+ * 1. mark them MOVING and wait until every node has seen it; their users can
+ *    still log in and authenticate, but nothing writes to them,
+ * 2. copy their users and OTPs to the target shard (upserts, so re-running a
+ *    step is safe),
+ * 3. point the buckets at the target and wait until every node has seen it,
+ * 4. delete the copies left on the source.
+ *
+ * Moves run in the background under the "shard-rebalance" cluster lease. A
+ * step interrupted by a crash is finished by the next rebalance or move.
+ */
+@Service
+@RequiredArgsConstructor
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final String JOB_NAME = "shard-rebalance";
+    private static final int SCAN_PAGE_SIZE = 5000;
+    private static final int COPY_BATCH_SIZE = 500;
+
+    private static final String USER_COLUMNS = "id, first_name, last_name, username, email, password, mobile_number, "
+            + "email_verified, mobile_verified, enabled, account_non_locked, created_at, updated_at, last_login_at, roles";
+
+    private static final String UPSERT_USER_SQL = "INSERT INTO users (" + USER_COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO UPDATE SET "
+            + "first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, username = EXCLUDED.username, "
+            + "email = EXCLUDED.email, password = EXCLUDED.password, mobile_number = EXCLUDED.mobile_number, "
+            + "email_verified = EXCLUDED.email_verified, mobile_verified = EXCLUDED.mobile_verified, "
+            + "enabled = EXCLUDED.enabled, account_non_locked = EXCLUDED.account_non_locked, "
+            + "updated_at = EXCLUDED.updated_at, last_login_at = EXCLUDED.last_login_at, roles = EXCLUDED.roles";
+
+    private static final String OTP_COLUMNS = "id, otp, identifier, type, purpose, expiry_time, used, created_at, used_at";
+
+    private static final String INSERT_OTP_SQL = "INSERT INTO otps (" + OTP_COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final Optional<ShardMap> shardMap;
+    private final Optional<ShardIndexRepository> shardIndex;
+    private final ClusterJobRunner clusterJobRunner;
+
+    @Value("${otp.expiration}")
+    private long otpExpirationMs;
+
+    @Value("${app.sharding.move-grace-ms:2000}")
+    private long moveGraceMs;
+
+    @Value("${app.sharding.move-buckets-per-step:8}")
+    private int bucketsPerStep;
+
+    private final Map<String, JdbcTemplate> shardTemplates = new ConcurrentHashMap<>();
+
+    private record Move(String source, String target, List<Integer> buckets) {
+    }
+
+    private record ScannedUser(long id, int bucket, String email, String mobileNumber) {
+    }
+
+    public List<ShardStatus> status() {
+        ShardMap map = requireShardMap();
+        List<ShardMap.Bucket> buckets = map.loadBuckets();
+
+        List<ShardStatus> statuses = new ArrayList<>();
+        for (String shard : map.getShardNames()) {
+            int owned = 0;
+            int moving = 0;
+            for (ShardMap.Bucket bucket : buckets) {
+                if (bucket.shard().equals(shard)) {
+                    owned++;
+                    // Still counts as moving until the source copy is deleted
+                    if (ShardMap.MOVING.equals(bucket.state()) || bucket.previousShard() != null) {
+                        moving++;
+                    }
+                }
+            }
+            Long users = jdbc(shard).queryForObject("SELECT count(*) FROM users", Long.class);
+            statuses.add(new ShardStatus(shard, owned, moving, users != null ? users : 0));
+        }
+        return statuses;
+    }
+
+    /**
+     * Start spreading the buckets evenly over the configured shards, emptying
+     * the drained ones. Returns the number of buckets that will move.
+     */
+    public int rebalance(Set<String> drain) {
+        ShardMap map = requireShardMap();
+        List<String> eligible = map.getShardNames().stream().filter(shard -> !drain.contains(shard)).toList();
+        if (eligible.isEmpty()) {
+            throw new RuntimeException("At least one shard must remain after draining");
+        }
+
+        Map<String, List<Integer>> owned = new LinkedHashMap<>();
+        map.getShardNames().forEach(shard -> owned.put(shard, new ArrayList<>()));
+        for (ShardMap.Bucket bucket : map.loadBuckets()) {
+            owned.get(bucket.shard()).add(bucket.bucket());
+        }
+
+        // The first (buckets % shards) eligible shards take one extra bucket
+        Map<String, Integer> quota = new LinkedHashMap<>();
+        for (int i = 0; i < eligible.size(); i++) {
+            int share = map.getBucketCount() / eligible.size();
+            quota.put(eligible.get(i), share + (i < map.getBucketCount() % eligible.size() ? 1 : 0));
+        }
+
+        List<Move> moves = new ArrayList<>();
+        List<String> receivers = new ArrayList<>(eligible);
+        for (Map.Entry<String, List<Integer>> entry : owned.entrySet()) {
+            List<Integer> surplus = new ArrayList<>(entry.getValue());
+            int keep = quota.getOrDefault(entry.getKey(), 0);
+            // Hand over the highest buckets first
+            surplus = surplus.subList(Math.min(keep, surplus.size()), surplus.size());
+
+            while (!surplus.isEmpty()) {
+                String receiver = receivers.get(0);
+                int room = quota.get(receiver) - owned.get(receiver).size();
+                if (room <= 0) {
+                    receivers.remove(0);
+                    continue;
+                }
+                List<Integer> handed = new ArrayList<>(surplus.subList(0, Math.min(room, surplus.size())));
+                owned.get(receiver).addAll(handed);
+                moves.add(new Move(entry.getKey(), receiver, handed));
+                surplus = surplus.subList(handed.size(), surplus.size());
+            }
+        }
+        return start(moves);
+    }
+
+    /**
+     * Start moving specific buckets to a shard. Returns the number that are not already there.
+     */
+    public int move(Collection<Integer> buckets, String target) {
+        ShardMap map = requireShardMap();
+        if (!map.getShardNames().contains(target)) {
+            throw new RuntimeException("Unknown shard: " + target);
+        }
+
+        Map<String, List<Integer>> bySource = new LinkedHashMap<>();
+        for (ShardMap.Bucket bucket : map.loadBuckets()) {
+            if (buckets.contains(bucket.bucket()) && !bucket.shard().equals(target)) {
+                bySource.computeIfAbsent(bucket.shard(), shard -> new ArrayList<>()).add(bucket.bucket());
+            }
+        }
+        return start(bySource.entrySet().stream()
+                .map(entry -> new Move(entry.getKey(), target, entry.getValue()))
+                .toList());
+    }
+
+    /**
+     * Rebuild the email / mobile number index from the users on every shard.
+     * Also reports users found on a shard their bucket does not map to.
+     */
+    public Map<String, Long> reindex() {
+        ShardMap map = requireShardMap();
+        ShardIndexRepository index = shardIndex.orElseThrow();
+        Map<Integer, String> owner = new LinkedHashMap<>();
+        for (ShardMap.Bucket bucket : map.loadBuckets()) {
+            owner.put(bucket.bucket(), bucket.shard());
+        }
+
+        long[] users = {0};
+        long[] misplaced = {0};
+        for (String shard : map.getShardNames()) {
+            scan(shard, null, batch -> {
+                List<Object[]> emails = new ArrayList<>(batch.size());
+                List<Object[]> mobiles = new ArrayList<>(batch.size());
+                for (ScannedUser user : batch) {
+                    emails.add(new Object[]{user.email(), user.bucket()});
+                    mobiles.add(new Object[]{user.mobileNumber(), user.bucket()});
+                    if (!shard.equals(owner.get(user.bucket()))) {
+                        misplaced[0]++;
+                    }
+                }
+                index.upsert(ShardIndexRepository.Kind.EMAIL, emails);
+                index.upsert(ShardIndexRepository.Kind.MOBILE, mobiles);
+                users[0] += batch.size();
+            });
+        }
+
+        log.info("Rebuilt the shard index from {} users, {} on a shard their bucket does not map to", users[0], misplaced[0]);
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("users", users[0]);
+        result.put("misplaced", misplaced[0]);
+        return result;
+    }
+
+    private int start(List<Move> moves) {
+        int total = moves.stream().mapToInt(move -> move.buckets().size()).sum();
+        Thread.ofVirtual().name(JOB_NAME).start(() -> {
+            try {
+                boolean ran = clusterJobRunner.runExclusively(JOB_NAME, Duration.ofHours(12), Duration.ZERO, () -> {
+                    resumeInterrupted();
+                    for (Move move : moves) {
+                        for (int i = 0; i < move.buckets().size(); i += bucketsPerStep) {
+                            List<Integer> step = move.buckets().subList(i, Math.min(i + bucketsPerStep, move.buckets().size()));
+                            moveStep(move.source(), move.target(), step);
+                        }
+                    }
+                });
+                if (!ran) {
+                    log.warn("Not moving {} buckets: another node is already rebalancing", total);
+                }
+            } catch (RuntimeException e) {
+                log.error("Shard rebalance failed", e);
+            }
+        });
+        return total;
+    }
+
+    // Finish steps a crashed node left half done
+    private void resumeInterrupted() {
+        Map<String, List<Integer>> cleanup = new LinkedHashMap<>();
+        for (ShardMap.Bucket bucket : requireShardMap().loadBuckets()) {
+            if (ShardMap.MOVING.equals(bucket.state())) {
+                log.info("Resuming move of bucket {} from {} to {}", bucket.bucket(), bucket.shard(), bucket.target());
+                moveStep(bucket.shard(), bucket.target(), List.of(bucket.bucket()));
+            } else if (bucket.previousShard() != null) {
+                cleanup.computeIfAbsent(bucket.previousShard(), shard -> new ArrayList<>()).add(bucket.bucket());
+            }
+        }
+        cleanup.forEach((shard, buckets) -> {
+            deleteBuckets(shard, new HashSet<>(buckets));
+            requireShardMap().cleanupDone(buckets);
+        });
+    }
+
+    private void moveStep(String source, String target, List<Integer> buckets) {
+        ShardMap map = requireShardMap();
+        map.markMoving(buckets, source, target);
+        // Includes buckets an interrupted step had already marked
+        Set<Integer> moving = new HashSet<>();
+        for (ShardMap.Bucket bucket : map.loadBuckets()) {
+            if (buckets.contains(bucket.bucket()) && ShardMap.MOVING.equals(bucket.state())
+                    && bucket.shard().equals(source) && target.equals(bucket.target())) {
+                moving.add(bucket.bucket());
+            }
+        }
+        if (moving.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        awaitMapRefresh();
+        long[] copied = {0};
+        try {
+            scan(source, moving, batch -> copied[0] += copy(source, target, batch));
+        } catch (RuntimeException e) {
+            try {
+                // Drop the partial copies so the buckets can safely go back to the source
+                deleteBuckets(target, moving);
+                map.abortMove(moving);
+            } catch (RuntimeException abortFailure) {
+                e.addSuppressed(abortFailure);
+                log.error("Buckets {} stay MOVING; run a rebalance or move again to finish them", moving);
+            }
+            throw e;
+        }
+
+        map.completeMove(moving, source, target);
+        awaitMapRefresh();
+        deleteBuckets(source, moving);
+        map.cleanupDone(moving);
+
+        log.info("Moved buckets {} ({} users) from {} to {} in {} ms",
+                moving, copied[0], source, target, System.currentTimeMillis() - start);
+    }
+
+    private int copy(String source, String target, List<ScannedUser> batch) {
+        JdbcTemplate from = jdbc(source);
+        JdbcTemplate to = jdbc(target);
+
+        List<Object[]> users = from.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT " + USER_COLUMNS + " FROM users WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", batch.stream().map(ScannedUser::id).toArray()));
+            return ps;
+        }, (rs, rowNum) -> row(rs, 15));
+        to.batchUpdate(UPSERT_USER_SQL, users);
+
+        // Codes still within their expiry window; older rows are never read again
+        Timestamp liveSince = Timestamp.valueOf(LocalDateTime.now().minus(otpExpirationMs, ChronoUnit.MILLIS));
+        List<Object[]> otps = from.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT " + OTP_COLUMNS + " FROM otps WHERE identifier = ANY(?) AND created_at > ?");
+            ps.setArray(1, con.createArrayOf("varchar", identifiers(batch)));
+            ps.setTimestamp(2, liveSince);
+            return ps;
+        }, (rs, rowNum) -> row(rs, 9));
+        to.batchUpdate(INSERT_OTP_SQL, otps);
+
+        return users.size();
+    }
+
+    private void deleteBuckets(String shard, Set<Integer> buckets) {
+        JdbcTemplate jdbc = jdbc(shard);
+        scan(shard, buckets, batch -> {
+            jdbc.update(con -> {
+                PreparedStatement ps = con.prepareStatement("DELETE FROM otps WHERE identifier = ANY(?)");
+                ps.setArray(1, con.createArrayOf("varchar", identifiers(batch)));
+                return ps;
+            });
+            jdbc.update(con -> {
+                PreparedStatement ps = con.prepareStatement("DELETE FROM users WHERE id = ANY(?)");
+                ps.setArray(1, con.createArrayOf("bigint", batch.stream().map(ScannedUser::id).toArray()));
+                return ps;
+            });
+        });
+    }
+
+    /**
+     * Walk a shard's users in id order and hand over those in the given buckets
+     * (all when null) in batches. Bucket membership is a hash of the username,
+     * so it cannot be filtered in SQL.
+     */
+    private void scan(String shard, Set<Integer> buckets, Consumer<List<ScannedUser>> action) {
+        ShardMap map = requireShardMap();
+        JdbcTemplate jdbc = jdbc(shard);
+        List<ScannedUser> batch = new ArrayList<>(COPY_BATCH_SIZE);
+        long lastId = Long.MIN_VALUE;
+
+        while (true) {
+            List<ScannedUser> page = new ArrayList<>(SCAN_PAGE_SIZE);
+            long[] pageLastId = {lastId};
+            jdbc.query("SELECT id, username, email, mobile_number FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                    (RowCallbackHandler) rs -> {
+                        pageLastId[0] = rs.getLong(1);
+                        page.add(new ScannedUser(rs.getLong(1), map.bucketOf(rs.getString(2)),
+                                rs.getString(3), rs.getString(4)));
+                    }, lastId, SCAN_PAGE_SIZE);
+
+            for (ScannedUser user : page) {
+                if (buckets == null || buckets.contains(user.bucket())) {
+                    batch.add(user);
+                    if (batch.size() == COPY_BATCH_SIZE) {
+                        action.accept(batch);
+                        batch = new ArrayList<>(COPY_BATCH_SIZE);
+                    }
+                }
+            }
+            if (page.size() < SCAN_PAGE_SIZE) {
+                break;
+            }
+            lastId = pageLastId[0];
+        }
+        if (!batch.isEmpty()) {
+            action.accept(batch);
+        }
+    }
+
+    // Nodes reload the map every interval and stop routing after two without a reload
+    private void awaitMapRefresh() {
+        try {
+            Thread.sleep(2 * requireShardMap().getRefreshIntervalMs() + moveGraceMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the shard map to propagate", e);
+        }
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return shardTemplates.computeIfAbsent(shard, name -> new JdbcTemplate(requireShardMap().dataSource(name)));
+    }
+
+    private ShardMap requireShardMap() {
+        return shardMap.orElseThrow(() -> new RuntimeException("Sharding is not enabled"));
+    }
+
+    private static Object[] identifiers(List<ScannedUser> batch) {
+        List<String> identifiers = new ArrayList<>(batch.size() * 2);
+        for (ScannedUser user : batch) {
+            identifiers.add(user.email());
+            identifiers.add(user.mobileNumber());
+        }
+        return identifiers.toArray();
+    }
+
+    private static Object[] row(ResultSet rs, int columns) throws SQLException {
+        Object[] values = new Object[columns];
+        for (int i = 0; i < columns; i++) {
+            values[i] = rs.getObject(i + 1);
+        }
+        return values;
+    }
+}
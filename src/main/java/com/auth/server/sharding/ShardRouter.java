@@ -0,0 +1,194 @@
+package com.auth.server.sharding;
+
+import com.auth.server.entity.Otp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Selects the shard for a unit of work on one user. A user lives on the shard
+ * of its username's bucket, and so do the OTPs sent to its email and mobile
+ * number; email and mobile number lead to that bucket through the global index.
+ *
+ * Without app.sharding.enabled every method is a no-op and everything runs on
+ * spring.datasource as before. Open the returned scope before the transaction
+ * does its first statement and keep it open until the transaction has ended.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShardRouter {
+
+    // A claim this old whose user never appeared on its shard was left by a failed registration
+    private static final long STALE_CLAIM_MINUTES = 10;
+
+    private final Optional<ShardMap> shardMap;
+    private final Optional<ShardIndexRepository> shardIndex;
+
+    public boolean isEnabled() {
+        return shardMap.isPresent();
+    }
+
+    /**
+     * Route work that may write to the user with this username
+     */
+    public ShardContext.Scope forUsername(String username) {
+        return shardMap.map(map -> ShardContext.use(map.shardFor(map.bucketOf(username), true)))
+                .orElse(ShardContext.NONE);
+    }
+
+    /**
+     * Route a read of the user with this username; still allowed while its bucket moves
+     */
+    public ShardContext.Scope forUsernameReadOnly(String username) {
+        return shardMap.map(map -> ShardContext.use(map.shardFor(map.bucketOf(username), false)))
+                .orElse(ShardContext.NONE);
+    }
+
+    public ShardContext.Scope forEmail(String email) {
+        return forIndexed(ShardIndexRepository.Kind.EMAIL, email, true);
+    }
+
+    public ShardContext.Scope forMobile(String mobileNumber) {
+        return forIndexed(ShardIndexRepository.Kind.MOBILE, mobileNumber, true);
+    }
+
+    /**
+     * Route work on the OTPs of an email address or mobile number
+     */
+    public ShardContext.Scope forOtpIdentifier(String identifier, Otp.OtpType type) {
+        return type == Otp.OtpType.SMS ? forMobile(identifier) : forEmail(identifier);
+    }
+
+    /**
+     * Route a login or password reset identifier: an indexed email, otherwise a username
+     */
+    public ShardContext.Scope forUsernameOrEmail(String identifier) {
+        return forIndexed(ShardIndexRepository.Kind.EMAIL, identifier, true);
+    }
+
+    /**
+     * Like forUsernameOrEmail, but still allowed while the user's bucket moves
+     */
+    public ShardContext.Scope forUsernameOrEmailReadOnly(String identifier) {
+        return forIndexed(ShardIndexRepository.Kind.EMAIL, identifier, false);
+    }
+
+    /**
+     * Route to a shard by name, e.g. one returned by shardOf
+     */
+    public ShardContext.Scope onShard(String shard) {
+        return shard == null ? ShardContext.NONE : ShardContext.use(shard);
+    }
+
+    /**
+     * The shard of the user with this username, or null without sharding
+     */
+    public String shardOf(String username, boolean write) {
+        return shardMap.map(map -> map.shardFor(map.bucketOf(username), write)).orElse(null);
+    }
+
+    /**
+     * Run the action once on every shard, or once on spring.datasource without sharding
+     */
+    public void forEachShard(Runnable action) {
+        if (shardMap.isEmpty()) {
+            action.run();
+            return;
+        }
+        for (String shard : shardMap.get().getShardNames()) {
+            try (ShardContext.Scope scope = ShardContext.use(shard)) {
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * A shard's own pool, for connections held outside of any routed transaction
+     */
+    public DataSource dataSource(String shard) {
+        return shardMap.orElseThrow().dataSource(shard);
+    }
+
+    /**
+     * Reserve a new user's email and mobile number across all shards. Returns
+     * the kind of value that already belongs to someone else, or null.
+     */
+    public ShardIndexRepository.Kind claim(String username, String email, String mobileNumber) {
+        if (shardMap.isEmpty()) {
+            return null;
+        }
+        int bucket = shardMap.get().bucketOf(username);
+        if (!claim(ShardIndexRepository.Kind.EMAIL, email, bucket)) {
+            return ShardIndexRepository.Kind.EMAIL;
+        }
+        if (!claim(ShardIndexRepository.Kind.MOBILE, mobileNumber, bucket)) {
+            shardIndex.get().release(ShardIndexRepository.Kind.EMAIL, email, bucket);
+            return ShardIndexRepository.Kind.MOBILE;
+        }
+        return null;
+    }
+
+    /**
+     * Undo claim after the user could not be created
+     */
+    public void release(String username, String email, String mobileNumber) {
+        if (shardMap.isEmpty()) {
+            return;
+        }
+        int bucket = shardMap.get().bucketOf(username);
+        shardIndex.get().release(ShardIndexRepository.Kind.EMAIL, email, bucket);
+        shardIndex.get().release(ShardIndexRepository.Kind.MOBILE, mobileNumber, bucket);
+    }
+
+    /**
+     * Values of this kind that belong to a user on any shard
+     */
+    public Set<String> findClaimed(ShardIndexRepository.Kind kind, Collection<String> values) {
+        return shardIndex.orElseThrow().findExisting(kind, values);
+    }
+
+    // A value nobody owns routes by its own hash: an identifier that is not an indexed
+    // email is a username, and OTPs for an unknown email still land on one stable shard
+    private ShardContext.Scope forIndexed(ShardIndexRepository.Kind kind, String value, boolean write) {
+        if (shardMap.isEmpty()) {
+            return ShardContext.NONE;
+        }
+        ShardMap map = shardMap.get();
+        int bucket = shardIndex.get().find(kind, value)
+                .map(ShardIndexRepository.Claim::bucket)
+                .orElseGet(() -> map.bucketOf(value));
+        return ShardContext.use(map.shardFor(bucket, write));
+    }
+
+    private boolean claim(ShardIndexRepository.Kind kind, String value, int bucket) {
+        ShardIndexRepository index = shardIndex.get();
+        if (index.claim(kind, value, bucket)) {
+            return true;
+        }
+
+        // Take over a claim left behind by a registration that died between claiming and inserting
+        Optional<ShardIndexRepository.Claim> existing = index.find(kind, value);
+        if (existing.isEmpty()) {
+            return index.claim(kind, value, bucket);
+        }
+        ShardIndexRepository.Claim claim = existing.get();
+        if (claim.claimedAt().isAfter(LocalDateTime.now().minusMinutes(STALE_CLAIM_MINUTES))
+                || ownerExists(kind, value, claim.bucket())) {
+            return false;
+        }
+        return index.releaseIfUnchanged(kind, value, claim) && index.claim(kind, value, bucket);
+    }
+
+    private boolean ownerExists(ShardIndexRepository.Kind kind, String value, int bucket) {
+        ShardMap map = shardMap.get();
+        JdbcTemplate shard = new JdbcTemplate(map.dataSource(map.shardFor(bucket, false)));
+        return Boolean.TRUE.equals(shard.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users WHERE " + kind.getColumn() + " = ?)", Boolean.class, value));
+    }
+}
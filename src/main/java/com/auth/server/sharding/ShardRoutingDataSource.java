@@ -0,0 +1,56 @@
+package com.auth.server.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends connections to the shard selected in ShardContext, or to the global
+ * database when none is. Must be wrapped in a LazyConnectionDataSourceProxy:
+ * a transaction then only takes a physical connection at its first statement,
+ * so a shard selected at the start of a @Transactional method body still applies.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final DataSource global;
+    private final Map<String, DataSource> shards;
+    private final List<String> shardNames;
+
+    public ShardRoutingDataSource(DataSource global, Map<String, DataSource> shards) {
+        this.global = global;
+        this.shards = shards;
+        this.shardNames = List.copyOf(shards.keySet());
+
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(global);
+        // An unknown shard name is a bug, never a reason to fall back to the global database
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    public DataSource getGlobal() {
+        return global;
+    }
+
+    public DataSource getShard(String name) {
+        DataSource shard = shards.get(name);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown shard: " + name);
+        }
+        return shard;
+    }
+
+    /**
+     * Configured shards in app.sharding.shards order
+     */
+    public List<String> getShardNames() {
+        return shardNames;
+    }
+}
@@ -0,0 +1,40 @@
+package com.auth.server.sharding;
+
+import com.auth.server.repository.SequenceAllocator;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+/**
+ * Schema bootstrap for sharding. Hibernate and spring.sql.init only see
+ * spring.datasource, which becomes the global database.
+ */
+public final class ShardSchema {
+
+    // Each shard's sequences start at id << 40, so ids stay unique when rows move between shards
+    private static final int SEQUENCE_RANGE_BITS = 40;
+
+    private ShardSchema() {
+    }
+
+    public static void createGlobalTables(DataSource global) {
+        new ResourceDatabasePopulator(new ClassPathResource("db/sharding-global.sql")).execute(global);
+    }
+
+    public static void createShardTables(DataSource shard, int shardId) {
+        ResourceDatabasePopulator otps = new ResourceDatabasePopulator(new ClassPathResource("db/otps-partitioning.sql"));
+        otps.setSeparator("@@");
+        otps.execute(shard);
+        new ResourceDatabasePopulator(new ClassPathResource("db/users-shard.sql")).execute(shard);
+
+        // Same increment as the Hibernate generated sequences (pooled-lo blocks)
+        long start = (long) shardId << SEQUENCE_RANGE_BITS;
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shard);
+        for (String sequence : new String[]{"users_seq", "otps_seq"}) {
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " START WITH " + start
+                    + " INCREMENT BY " + SequenceAllocator.BLOCK_SIZE);
+        }
+    }
+}
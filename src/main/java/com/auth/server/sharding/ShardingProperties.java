@@ -0,0 +1,36 @@
+package com.auth.server.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    // Usernames hash into this many buckets; fixed once the shard map exists
+    private int buckets = 1024;
+
+    // How often every node reloads the bucket -> shard map
+    private long mapRefreshIntervalMs = 5000;
+
+    // Extra wait for in-flight requests when a move changes a bucket's state
+    private long moveGraceMs = 2000;
+
+    // Buckets taken offline for writes at a time while rebalancing
+    private int moveBucketsPerStep = 8;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,201 @@
+package com.auth.server.startup;
+
+import com.auth.server.dto.ApiResponse;
+import com.auth.server.dto.AuthResponse;
+import com.auth.server.dto.LoginRequest;
+import com.auth.server.dto.RegistrationRequest;
+import com.auth.server.entity.Otp;
+import com.auth.server.entity.User;
+import com.auth.server.repository.OtpRepository;
+import com.auth.server.repository.UserRepository;
+import com.auth.server.service.EmailService;
+import com.auth.server.sharding.ShardRouter;
+import com.auth.server.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the request hot paths on synthetic data before the server reports
+ * ready: JWT minting and validation, BCrypt, Jackson, every UserRepository and
+ * OtpRepository query (writes are rolled back) and the email templates. This
+ * gets JIT compilation, Hibernate query plans and pool connections out of the
+ * way of the first real requests.
+ *
+ * Spring Boot switches readiness to ACCEPTING_TRAFFIC only after all
+ * ApplicationRunners have returned, so /actuator/health/readiness stays
+ * OUT_OF_SERVICE until the warm-up is done. A failing step is logged and
+ * skipped; it never prevents startup.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class WarmUpRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    // Synthetic values use the reserved .invalid TLD and a per-run suffix, so they never meet real accounts
+    private static final String PASSWORD = "Warm-up@1";
+    private static final String LOGIN_JSON = """
+            {"username":"warm-up","password":"Warm-up@1"}""";
+    private static final String REGISTRATION_JSON = """
+            {"firstName":"Warm","lastName":"Up","username":"warm-up","email":"warm-up@example.invalid",\
+            "password":"Warm-up@1","mobileNumber":"+10000000000"}""";
+
+    private final JwtUtil jwtUtil;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final UserRepository userRepository;
+    private final OtpRepository otpRepository;
+    private final EmailService emailService;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.warm-up.iterations:200}")
+    private int iterations;
+
+    @Value("${app.warm-up.password-iterations:4}")
+    private int passwordIterations;
+
+    @Value("${app.warm-up.max-duration-ms:30000}")
+    private long maxDurationMs;
+
+    @Value("${otp.expiration}")
+    private long otpExpirationMs;
+
+    private interface Step {
+        void run(int iteration) throws Exception;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+        String run = Long.toString(System.currentTimeMillis(), 36);
+
+        Map<String, Long> phases = new LinkedHashMap<>();
+        phase(phases, "jwt", iterations, deadline, i -> jwt(run, i));
+        phase(phases, "password", passwordIterations, deadline, i -> password());
+        phase(phases, "json", iterations, deadline, i -> json());
+        phase(phases, "repositories", iterations, deadline,
+                i -> shardRouter.forEachShard(() -> repositories(run, i)));
+        phase(phases, "email", iterations, deadline, i -> email(run));
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("startup.warm-up.duration")
+                .description("Time spent warming up request paths before readiness")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Warm-up finished in {} ms, per phase in ms: {}", TimeUnit.NANOSECONDS.toMillis(elapsed), phases);
+    }
+
+    private void phase(Map<String, Long> phases, String name, int count, long deadline, Step step) {
+        long start = System.nanoTime();
+        int done = 0;
+        try {
+            for (; done < count && System.nanoTime() < deadline; done++) {
+                step.run(done);
+            }
+        } catch (Exception e) {
+            log.warn("Warm-up of {} failed after {} iterations: {}", name, done, e.toString());
+        }
+        if (done < count && System.nanoTime() >= deadline) {
+            log.warn("Warm-up of {} stopped after {} of {} iterations: app.warm-up.max-duration-ms reached", name, done, count);
+        }
+        phases.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void jwt(String run, int i) {
+        String token = jwtUtil.generateToken("warm-up-" + run + "-" + i);
+        jwtUtil.validate(token);
+        jwtUtil.getUsernameFromToken(token);
+        // Rejections take their own paths: a bad signature and a malformed token
+        jwtUtil.validate(token.substring(0, token.length() - 2) + "AA");
+        jwtUtil.validate("warm-up");
+    }
+
+    private void password() {
+        String hash = passwordEncoder.encode(PASSWORD);
+        passwordEncoder.matches(PASSWORD, hash);
+    }
+
+    private void json() throws Exception {
+        objectMapper.readValue(LOGIN_JSON, LoginRequest.class);
+        objectMapper.readValue(REGISTRATION_JSON, RegistrationRequest.class);
+        objectMapper.writeValueAsBytes(new AuthResponse("warm-up", "warm-up", "warm-up@example.invalid"));
+        objectMapper.writeValueAsBytes(new ApiResponse(true, "warm-up"));
+    }
+
+    private void repositories(String run, int i) {
+        String username = "warm-up-" + run + "-" + i;
+        String email = username + "@example.invalid";
+        String mobileNumber = "+" + username;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minus(otpExpirationMs, ChronoUnit.MILLIS);
+
+        userRepository.findByUsername(username);
+        userRepository.findByEmail(email);
+        userRepository.findByMobileNumber(mobileNumber);
+        userRepository.findByUsernameOrEmail(username, email);
+        userRepository.existsByUsername(username);
+        userRepository.existsByEmail(email);
+        userRepository.existsByMobileNumber(mobileNumber);
+        userRepository.findCredentialsByUsername(username);
+        userRepository.findCredentialsByUsernameOrEmail(username);
+        otpRepository.findTopByIdentifierAndTypeAndPurposeAndUsedFalseAndCreatedAtAfterOrderByCreatedAtDesc(
+                email, Otp.OtpType.EMAIL, Otp.OtpPurpose.REGISTRATION, since);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+
+            User user = new User();
+            user.setFirstName("Warm");
+            user.setLastName("Up");
+            user.setUsername(username);
+            user.setEmail(email);
+            user.setPassword(PASSWORD);
+            user.setMobileNumber(mobileNumber);
+            userRepository.saveAndFlush(user);
+            userRepository.updateLastLoginAt(user.getId(), now);
+
+            Otp otp = new Otp();
+            otp.setOtp("000000");
+            otp.setIdentifier(email);
+            otp.setType(Otp.OtpType.EMAIL);
+            otp.setPurpose(Otp.OtpPurpose.REGISTRATION);
+            otp.setExpiryTime(now.plus(otpExpirationMs, ChronoUnit.MILLIS));
+            otp.setCreatedAt(now);
+            otpRepository.saveAndFlush(otp);
+            otpRepository.consume(email, "000000", Otp.OtpType.EMAIL, Otp.OtpPurpose.REGISTRATION, now, since);
+            otpRepository.deleteByIdentifierAndTypeAndPurposeAndCreatedAtAfter(
+                    email, Otp.OtpType.EMAIL, Otp.OtpPurpose.REGISTRATION, since);
+        });
+    }
+
+    private void email(String run) throws Exception {
+        String email = "warm-up-" + run + "@example.invalid";
+        for (Otp.OtpPurpose purpose : Otp.OtpPurpose.values()) {
+            emailService.createOtpEmail(email, "000000", purpose.name());
+        }
+        emailService.createWelcomeEmail(email, "Warm");
+    }
+}
@@ -0,0 +1,31 @@
+package com.auth.server.timing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Times every call on a Spring Data repository as RequestTiming.Phase.DB. The
+ * advice goes in front of the repository's transaction interceptor, so a call
+ * that runs its own transaction includes getting the connection and committing.
+ */
+public class RepositoryTimingPostProcessor implements BeanPostProcessor {
+
+    private static final MethodInterceptor TIMING = invocation -> {
+        long start = RequestTiming.start();
+        try {
+            return invocation.proceed();
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.DB, start);
+        }
+    };
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0, TIMING)));
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,139 @@
+package com.auth.server.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs requests slower than app.timing.slow-request-ms. Sampled requests
+ * (app.timing.sample-rate) also get a RequestTiming context, so their log line
+ * carries the per-phase breakdown, and with app.timing.header enabled a
+ * Server-Timing header added just before the response is committed.
+ *
+ * The header is off by default: it reveals whether a login reached the
+ * password check, and so whether the account exists, plus internal call
+ * counts. Only enable it where every caller is trusted.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final double sampleRate;
+    private final boolean header;
+    private final long slowRequestNanos;
+
+    public ServerTimingFilter(double sampleRate, boolean header, long slowRequestMs) {
+        this.sampleRate = sampleRate;
+        this.header = header;
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMs);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!isSampled()) {
+            long start = System.nanoTime();
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                logIfSlow(request, response, System.nanoTime() - start, "not sampled");
+            }
+            return;
+        }
+
+        RequestTiming timing = RequestTiming.begin();
+        TimingResponse timingResponse = header ? new TimingResponse(response, timing) : null;
+        try {
+            chain.doFilter(request, timingResponse != null ? timingResponse : response);
+        } finally {
+            RequestTiming.end();
+            if (timingResponse != null) {
+                timingResponse.addServerTiming();
+            }
+            long elapsed = timing.elapsedNanos();
+            // Only build the breakdown for requests that get logged
+            if (slowRequestNanos > 0 && elapsed >= slowRequestNanos) {
+                logIfSlow(request, response, elapsed, timing.toLogString());
+            }
+        }
+    }
+
+    private boolean isSampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private void logIfSlow(HttpServletRequest request, HttpServletResponse response, long elapsed, String breakdown) {
+        if (slowRequestNanos > 0 && elapsed >= slowRequestNanos) {
+            log.warn("Slow request {} {} -> {} in {} ms: {}", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), TimeUnit.NANOSECONDS.toMillis(elapsed), breakdown);
+        }
+    }
+
+    // Headers can only be added until the first byte of the body goes out
+    private static class TimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTiming timing;
+        private boolean added;
+
+        TimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        void addServerTiming() {
+            if (!added && !isCommitted()) {
+                added = true;
+                addHeader(SERVER_TIMING, timing.toHeader());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
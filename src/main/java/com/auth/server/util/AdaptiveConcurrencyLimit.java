@@ -0,0 +1,89 @@
+package com.auth.server.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit driven by observed latency. While requests finish
+ * under the latency threshold the limit grows by roughly one per limit's
+ * worth of completions; a slower completion cuts it by the backoff ratio, at
+ * most once per threshold interval so one burst of slow requests counts once.
+ * Requests beyond the current limit are rejected rather than queued.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private long lastDecreaseAt;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit,
+                                    long latencyThresholdMs, double backoffRatio) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min <= initial <= max, got "
+                    + minLimit + " / " + initialLimit + " / " + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdMs * 1_000_000;
+        this.backoffRatio = backoffRatio;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+        this.lastDecreaseAt = System.nanoTime() - latencyThresholdNanos;
+    }
+
+    /**
+     * Take a slot if fewer than limit requests are in flight. Every successful
+     * call must be paired with {@link #release(long)}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Free the slot taken at startNanos (System.nanoTime()) and adjust the limit
+     */
+    public void release(long startNanos) {
+        long now = System.nanoTime();
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(now - startNanos, inFlightBefore, now);
+    }
+
+    private synchronized void onSample(long latencyNanos, int inFlightBefore, long now) {
+        if (latencyNanos > latencyThresholdNanos) {
+            if (now - lastDecreaseAt >= latencyThresholdNanos) {
+                estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+                lastDecreaseAt = now;
+            }
+        } else if (inFlightBefore * 2 >= estimatedLimit) {
+            // Only grow when the limit is actually being used, not while traffic is light
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1 / estimatedLimit);
+        }
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,140 @@
+package com.auth.server.util;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Minimal circuit breaker for outbound providers (SMTP, Twilio).
+ * Opens after a run of consecutive failures, rejects calls while open and
+ * lets a single probe through once the open period has elapsed.
+ *
+ * Only exceptions accepted by the failure classifier count as failures, so a
+ * provider that answers "bad recipient" is still considered up. Such an
+ * exception is rethrown like any other, but resets the failure run.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final Predicate<Throwable> isFailure;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private long totalFailures;
+    private long rejectedCalls;
+    private long lastFailureAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs, Predicate<Throwable> isFailure) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.isFailure = isFailure;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        State permit = tryAcquire();
+        if (permit == null) {
+            throw new RuntimeException(name + " provider is temporarily unavailable");
+        }
+        try {
+            T result = action.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            if (isFailure.test(e)) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+            throw e;
+        } finally {
+            // Also reached when the probe throws an Error, which would otherwise leave the breaker half open for good
+            if (permit == State.HALF_OPEN) {
+                releaseProbe();
+            }
+        }
+    }
+
+    public void run(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // The state the call was admitted in (HALF_OPEN for the probe), or null if rejected
+    private synchronized State tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return State.CLOSED;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt >= openDurationMs) {
+                    // Let exactly one probe through to test the provider
+                    state = State.HALF_OPEN;
+                    probeInFlight = true;
+                    return State.HALF_OPEN;
+                }
+                break;
+            case HALF_OPEN:
+                if (!probeInFlight) {
+                    probeInFlight = true;
+                    return State.HALF_OPEN;
+                }
+                break;
+        }
+        rejectedCalls++;
+        return null;
+    }
+
+    private synchronized void releaseProbe() {
+        probeInFlight = false;
+    }
+
+    private synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void onFailure() {
+        totalFailures++;
+        lastFailureAt = System.currentTimeMillis();
+
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = lastFailureAt;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("state", state.name());
+        details.put("consecutiveFailures", consecutiveFailures);
+        details.put("totalFailures", totalFailures);
+        details.put("rejectedCalls", rejectedCalls);
+        if (lastFailureAt > 0) {
+            details.put("lastFailureAt", Instant.ofEpochMilli(lastFailureAt).toString());
+        }
+        return details;
+    }
+}
@@ -0,0 +1,75 @@
+package com.auth.server.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * HOTP-style codes (RFC 4226 dynamic truncation) over HMAC-SHA256 of a scope,
+ * an identifier and a counter, typically a time step as in TOTP. Anyone with
+ * the secret can recompute a code, so verifying one needs no stored state.
+ */
+public class HmacOtp {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final int digits;
+    private final int modulus;
+    private final ThreadLocal<Mac> macs;
+
+    public HmacOtp(byte[] secret, int digits) {
+        if (digits < 6 || digits > 9) {
+            throw new IllegalArgumentException("OTP length must be between 6 and 9 digits");
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.digits = digits;
+        this.modulus = (int) Math.pow(10, digits);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String code(String scope, String identifier, long counter) {
+        Mac mac = macs.get();
+        // Zero bytes keep ("a", "bc") and ("ab", "c") apart
+        mac.update(scope.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        mac.update(identifier.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            mac.update((byte) (counter >>> shift));
+        }
+        byte[] hash = mac.doFinal();
+
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = (hash[offset] & 0x7f) << 24
+                | (hash[offset + 1] & 0xff) << 16
+                | (hash[offset + 2] & 0xff) << 8
+                | (hash[offset + 3] & 0xff);
+
+        String code = Integer.toString(binary % modulus);
+        return "0".repeat(digits - code.length()) + code;
+    }
+
+    /**
+     * Constant-time check of a submitted code against the one for this counter
+     */
+    public boolean matches(String submitted, String scope, String identifier, long counter) {
+        if (submitted == null || submitted.length() != digits) {
+            return false;
+        }
+        return MessageDigest.isEqual(submitted.getBytes(StandardCharsets.US_ASCII),
+                code(scope, identifier, counter).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.auth.server.util;
 
+import com.auth.server.timing.RequestTiming;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -18,13 +21,56 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private long jwtExpirationMs;
 
+    // Built once instead of on every call; JwtParser is immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private TokenMinter tokenMinter;
+    private TokenValidator tokenValidator;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        tokenMinter = new TokenMinter(signingKey);
+        tokenValidator = new TokenValidator(signingKey);
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
+    }
+
+    /**
+     * Verify the signature and expiry and return the claims, throwing JwtException otherwise
+     */
+    public Claims parseClaims(String token) {
+        long start = RequestTiming.start();
+        try {
+            return parser.parseSignedClaims(token).getPayload();
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.JWT, start);
+        }
     }
 
     public String generateToken(String username) {
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
+        long start = RequestTiming.start();
+        try {
+            return mint(username);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.JWT, start);
+        }
+    }
+
+    private String mint(String username) {
+        long nowMs = System.currentTimeMillis();
+        if (TokenMinter.isPlainSubject(username)) {
+            // Same bytes as the JJWT builder below, without its per-token allocations
+            return tokenMinter.mint(username, nowMs / 1000, (nowMs + jwtExpirationMs) / 1000);
+        }
+
+        Date now = new Date(nowMs);
+        Date expiryDate = new Date(nowMs + jwtExpirationMs);
 
         return Jwts.builder()
                 .subject(username)
@@ -35,42 +81,51 @@ public class JwtUtil {
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = parseClaims(token);
 
         return claims.getSubject();
     }
 
     public boolean validateToken(String token) {
+        return validate(token).isValid();
+    }
+
+    /**
+     * Validate signature and expiry. Forged, malformed and expired tokens are
+     * rejected without throwing; only correctly signed tokens outside our
+     * usual claim layout go through JJWT.
+     */
+    public TokenValidator.Result validate(String token) {
+        long start = RequestTiming.start();
         try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token);
-            return true;
-        } catch (SecurityException ex) {
-            System.err.println("Invalid JWT signature");
-        } catch (MalformedJwtException ex) {
-            System.err.println("Invalid JWT token");
+            TokenValidator.Result result = tokenValidator.validate(token);
+            return result != null ? result : validateWithJjwt(token);
+        } finally {
+            RequestTiming.stop(RequestTiming.Phase.JWT, start);
+        }
+    }
+
+    private TokenValidator.Result validateWithJjwt(String token) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() == null) {
+                // Every token this server issues expires; anything else was not minted here
+                return TokenValidator.Result.UNSUPPORTED;
+            }
+            return TokenValidator.Result.valid(claims.getSubject(), claims.getExpiration().getTime() / 1000);
         } catch (ExpiredJwtException ex) {
-            System.err.println("Expired JWT token");
+            return TokenValidator.Result.EXPIRED;
+        } catch (SecurityException ex) {
+            return TokenValidator.Result.INVALID_SIGNATURE;
         } catch (UnsupportedJwtException ex) {
-            System.err.println("Unsupported JWT token");
-        } catch (IllegalArgumentException ex) {
-            System.err.println("JWT claims string is empty");
+            return TokenValidator.Result.UNSUPPORTED;
+        } catch (JwtException | IllegalArgumentException ex) {
+            return TokenValidator.Result.MALFORMED;
         }
-        return false;
     }
 
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = parseClaims(token);
 
         return claims.getExpiration();
     }
@@ -0,0 +1,56 @@
+package com.auth.server.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-key token bucket. Each key may burst up to the per-minute limit and
+ * refills continuously; idle buckets are evicted by {@link #evictIdle()}.
+ */
+public class RateLimiter {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(int requestsPerMinute) {
+        this.capacity = requestsPerMinute;
+        this.refillPerNano = requestsPerMinute / 60_000_000_000.0;
+    }
+
+    public boolean tryAcquire(String key) {
+        return buckets.computeIfAbsent(key, k -> new Bucket(capacity)).tryAcquire();
+    }
+
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+    }
+
+    private class Bucket {
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        private Bucket(double tokens) {
+            this.tokens = tokens;
+        }
+
+        private synchronized boolean tryAcquire() {
+            refill(System.nanoTime());
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
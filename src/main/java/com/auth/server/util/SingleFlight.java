@@ -0,0 +1,75 @@
+package com.auth.server.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller (the leader)
+ * runs the action, callers arriving while it runs wait for and share its
+ * result or exception instead of running the action again.
+ *
+ * The result is shared as soon as the action returns, so the action must
+ * finish its own work (e.g. commit its own transaction) before returning.
+ * A waiter gives up after maxWait and runs the action itself, so a slow or
+ * stuck leader, or a thread re-entering its own key, delays callers by at
+ * most that long.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+
+    public SingleFlight(Duration maxWait) {
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Result of one call: the value and whether it came from another caller's flight
+     */
+    public record Outcome<V>(V value, boolean shared) {
+    }
+
+    public Outcome<V> execute(K key, Supplier<V> action) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing == null) {
+            return new Outcome<>(lead(key, flight, action), false);
+        }
+        try {
+            return new Outcome<>(existing.get(maxWaitNanos, TimeUnit.NANOSECONDS), true);
+        } catch (TimeoutException e) {
+            // Leader too slow; do the work ourselves without taking its key
+            return new Outcome<>(action.get(), false);
+        } catch (ExecutionException e) {
+            // The leader's exception, shared with everyone who waited
+            Throwable cause = e.getCause();
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw cause instanceof RuntimeException runtimeException
+                    ? runtimeException : new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a concurrent identical call", e);
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> flight, Supplier<V> action) {
+        try {
+            V value = action.get();
+            // Complete before releasing, so callers arriving in between still share the value
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+}
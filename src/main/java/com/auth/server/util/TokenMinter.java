@@ -0,0 +1,199 @@
+package com.auth.server.util;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Mints our fixed claim set (sub, iat, exp) without JJWT's builder and
+ * Jackson. The output matches what Jwts.builder() produces for the same
+ * key and claims: header {"alg":"HSxxx"}, claims in sub/iat/exp order.
+ *
+ * Subjects that would need JSON escaping are rejected; JwtUtil falls back
+ * to JJWT for those.
+ */
+public class TokenMinter {
+
+    // Claim layout, shared with TokenValidator
+    static final byte[] SUB = ascii("{\"sub\":\"");
+    static final byte[] IAT = ascii("\",\"iat\":");
+    static final byte[] EXP = ascii(",\"exp\":");
+
+    static final byte[] ENCODE =
+            ascii("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_");
+
+    private final byte[] encodedHeader;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<Scratch> scratch;
+
+    public TokenMinter(SecretKey key) {
+        this.encodedHeader = ascii(encodedHeader(key));
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(newMac(key).getMacLength()));
+    }
+
+    /**
+     * Whether the subject can be written without JSON escaping
+     */
+    public static boolean isPlainSubject(String subject) {
+        for (int i = 0; i < subject.length(); i++) {
+            char c = subject.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mint a token; times are epoch seconds
+     */
+    public String mint(String subject, long issuedAt, long expiresAt) {
+        if (!isPlainSubject(subject)) {
+            throw new IllegalArgumentException("Subject needs JSON escaping");
+        }
+
+        Scratch buffers = scratch.get();
+
+        // Compact claims JSON
+        byte[] claims = buffers.claims(SUB.length + subject.length() + IAT.length + EXP.length + 42);
+        int claimsLength = put(claims, 0, SUB);
+        for (int i = 0; i < subject.length(); i++) {
+            claims[claimsLength++] = (byte) subject.charAt(i);
+        }
+        claimsLength = put(claims, claimsLength, IAT);
+        claimsLength = putLong(claims, claimsLength, issuedAt);
+        claimsLength = put(claims, claimsLength, EXP);
+        claimsLength = putLong(claims, claimsLength, expiresAt);
+        claims[claimsLength++] = '}';
+
+        // header.payload.signature, assembled in one buffer
+        int signatureLength = buffers.signature.length;
+        byte[] token = buffers.token(encodedHeader.length + 1 + encodedLength(claimsLength) + 1
+                + encodedLength(signatureLength));
+        int position = put(token, 0, encodedHeader);
+        token[position++] = '.';
+        position = encode(claims, claimsLength, token, position);
+
+        Mac mac = macs.get();
+        mac.update(token, 0, position);
+        try {
+            mac.doFinal(buffers.signature, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+
+        token[position++] = '.';
+        position = encode(buffers.signature, signatureLength, token, position);
+
+        return new String(token, 0, position, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Base64url of the JWS header JJWT writes for this key
+     */
+    static String encodedHeader(SecretKey key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("{\"alg\":\"" + jwsAlgorithm(key.getAlgorithm()) + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Mac newMac(SecretKey key) {
+        try {
+            Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + key.getAlgorithm(), e);
+        }
+    }
+
+    private static String jwsAlgorithm(String macAlgorithm) {
+        return switch (macAlgorithm) {
+            case "HmacSHA256" -> "HS256";
+            case "HmacSHA384" -> "HS384";
+            case "HmacSHA512" -> "HS512";
+            default -> throw new IllegalArgumentException("Unsupported key algorithm: " + macAlgorithm);
+        };
+    }
+
+    static int encodedLength(int bytes) {
+        return bytes / 3 * 4 + (bytes % 3 == 0 ? 0 : bytes % 3 + 1);
+    }
+
+    // Unpadded base64url of src[0, length) into dst at position, returning the new position
+    static int encode(byte[] src, int length, byte[] dst, int position) {
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[position++] = ENCODE[bits >>> 18 & 0x3f];
+            dst[position++] = ENCODE[bits >>> 12 & 0x3f];
+            dst[position++] = ENCODE[bits >>> 6 & 0x3f];
+            dst[position++] = ENCODE[bits & 0x3f];
+        }
+
+        int remaining = length - i;
+        if (remaining == 1) {
+            int bits = (src[i] & 0xff) << 16;
+            dst[position++] = ENCODE[bits >>> 18 & 0x3f];
+            dst[position++] = ENCODE[bits >>> 12 & 0x3f];
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            dst[position++] = ENCODE[bits >>> 18 & 0x3f];
+            dst[position++] = ENCODE[bits >>> 12 & 0x3f];
+            dst[position++] = ENCODE[bits >>> 6 & 0x3f];
+        }
+        return position;
+    }
+
+    private static int put(byte[] dst, int position, byte[] src) {
+        System.arraycopy(src, 0, dst, position, src.length);
+        return position + src.length;
+    }
+
+    // Decimal digits of a non-negative long, without going through a String
+    private static int putLong(byte[] dst, int position, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative time: " + value);
+        }
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            dst[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static class Scratch {
+        private final byte[] signature;
+        private byte[] claims = new byte[128];
+        private byte[] token = new byte[512];
+
+        private Scratch(int macLength) {
+            this.signature = new byte[macLength];
+        }
+
+        private byte[] claims(int length) {
+            if (claims.length < length) {
+                claims = new byte[length];
+            }
+            return claims;
+        }
+
+        private byte[] token(int length) {
+            if (token.length < length) {
+                token = new byte[length];
+            }
+            return token;
+        }
+    }
+}
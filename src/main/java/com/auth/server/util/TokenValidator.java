@@ -0,0 +1,256 @@
+package com.auth.server.util;
+
+import com.auth.server.dto.TokenIntrospection;
+import lombok.Getter;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Validates tokens in the layout TokenMinter writes (header {"alg":"HSxxx"},
+ * claims sub/iat/exp) without JJWT, Jackson or exceptions. The signature is
+ * recomputed and compared in constant time before the claims are read.
+ * Rejections are shared constants, so a forged, malformed or expired token
+ * costs neither an allocation nor a stack trace.
+ *
+ * Returns null for a correctly signed token whose claims are laid out
+ * differently (e.g. a subject that needed JSON escaping); JwtUtil hands
+ * those to JJWT.
+ */
+public class TokenValidator {
+
+    private static final int MAX_TOKEN_LENGTH = 8 * 1024;
+
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < TokenMinter.ENCODE.length; i++) {
+            DECODE[TokenMinter.ENCODE[i]] = (byte) i;
+        }
+    }
+
+    private final String encodedHeader;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<Scratch> scratch;
+
+    public TokenValidator(SecretKey key) {
+        this.encodedHeader = TokenMinter.encodedHeader(key);
+        this.macs = ThreadLocal.withInitial(() -> TokenMinter.newMac(key));
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(TokenMinter.newMac(key).getMacLength()));
+    }
+
+    public Result validate(String token) {
+        if (token == null || token.isBlank()) {
+            return Result.EMPTY;
+        }
+        if (token.length() > MAX_TOKEN_LENGTH) {
+            return Result.MALFORMED;
+        }
+
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return Result.MALFORMED;
+        }
+
+        // We only ever issue one header, so anything else was not minted here
+        if (firstDot != encodedHeader.length() || !token.startsWith(encodedHeader)) {
+            return Result.UNSUPPORTED;
+        }
+
+        Scratch buffers = scratch.get();
+        byte[] signed = buffers.signed(secondDot);
+        for (int i = 0; i < secondDot; i++) {
+            char c = token.charAt(i);
+            if (c >= 0x80) {
+                return Result.MALFORMED;
+            }
+            signed[i] = (byte) c;
+        }
+
+        // Compare base64url of the expected MAC with the token's signature part
+        Mac mac = macs.get();
+        mac.update(signed, 0, secondDot);
+        try {
+            mac.doFinal(buffers.signature, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        int expectedLength = TokenMinter.encode(buffers.signature, buffers.signature.length, buffers.expected, 0);
+        if (token.length() - secondDot - 1 != expectedLength) {
+            return Result.INVALID_SIGNATURE;
+        }
+        int difference = 0;
+        for (int i = 0; i < expectedLength; i++) {
+            difference |= token.charAt(secondDot + 1 + i) ^ buffers.expected[i];
+        }
+        if (difference != 0) {
+            return Result.INVALID_SIGNATURE;
+        }
+
+        byte[] claims = buffers.claims(secondDot - firstDot);
+        int claimsLength = decode(signed, firstDot + 1, secondDot, claims);
+        if (claimsLength < 0) {
+            return Result.MALFORMED;
+        }
+
+        // {"sub":"<subject>","iat":<seconds>,"exp":<seconds>}
+        int position = expect(claims, 0, claimsLength, TokenMinter.SUB);
+        int subjectStart = position;
+        while (position >= 0 && position < claimsLength && claims[position] != '"') {
+            byte b = claims[position];
+            if (b < 0x20 || b == '\\') {
+                // Escaped or non-ASCII subject
+                return null;
+            }
+            position++;
+        }
+        int subjectEnd = position;
+        position = expect(claims, position, claimsLength, TokenMinter.IAT);
+        position = skipDigits(claims, position, claimsLength);
+        int expStart = expect(claims, position, claimsLength, TokenMinter.EXP);
+        position = skipDigits(claims, expStart, claimsLength);
+        if (position < 0 || position != claimsLength - 1 || claims[position] != '}') {
+            return null;
+        }
+
+        long expiresAt = parseLong(claims, expStart, position);
+        // Same rule as JJWT without clock skew: valid up to and including the exp instant
+        if (System.currentTimeMillis() > expiresAt * 1000) {
+            return Result.EXPIRED;
+        }
+
+        return Result.valid(new String(claims, subjectStart, subjectEnd - subjectStart, StandardCharsets.ISO_8859_1),
+                expiresAt);
+    }
+
+    // Position after the expected bytes, or -1
+    private static int expect(byte[] src, int position, int length, byte[] expected) {
+        if (position < 0 || position + expected.length > length) {
+            return -1;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (src[position + i] != expected[i]) {
+                return -1;
+            }
+        }
+        return position + expected.length;
+    }
+
+    // Position after 1 to 18 decimal digits, or -1
+    private static int skipDigits(byte[] src, int position, int length) {
+        if (position < 0) {
+            return -1;
+        }
+        int start = position;
+        while (position < length && src[position] >= '0' && src[position] <= '9') {
+            position++;
+        }
+        return position > start && position - start <= 18 ? position : -1;
+    }
+
+    private static long parseLong(byte[] src, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (src[i] - '0');
+        }
+        return value;
+    }
+
+    // Unpadded base64url of src[from, to) into dst, returning the decoded length or -1
+    private static int decode(byte[] src, int from, int to, byte[] dst) {
+        if ((to - from) % 4 == 1) {
+            return -1;
+        }
+
+        int length = 0;
+        int bits = 0;
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int value = DECODE[src[i]];
+            if (value < 0) {
+                return -1;
+            }
+            bits = bits << 6 | value;
+            if (++count == 4) {
+                dst[length++] = (byte) (bits >> 16);
+                dst[length++] = (byte) (bits >> 8);
+                dst[length++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+
+        if (count == 2) {
+            dst[length++] = (byte) (bits >> 4);
+        } else if (count == 3) {
+            dst[length++] = (byte) (bits >> 10);
+            dst[length++] = (byte) (bits >> 2);
+        }
+        return length;
+    }
+
+    /**
+     * Outcome of validating a token: the subject and expiry (epoch seconds) if
+     * valid, otherwise why it was rejected
+     */
+    @Getter
+    public static class Result {
+
+        public static final Result EMPTY = new Result(TokenIntrospection.Reason.EMPTY, null, 0);
+        public static final Result MALFORMED = new Result(TokenIntrospection.Reason.MALFORMED, null, 0);
+        public static final Result UNSUPPORTED = new Result(TokenIntrospection.Reason.UNSUPPORTED, null, 0);
+        public static final Result INVALID_SIGNATURE = new Result(TokenIntrospection.Reason.INVALID_SIGNATURE, null, 0);
+        public static final Result EXPIRED = new Result(TokenIntrospection.Reason.EXPIRED, null, 0);
+
+        private final TokenIntrospection.Reason reason;
+        private final String subject;
+        private final long expiresAt;
+
+        private Result(TokenIntrospection.Reason reason, String subject, long expiresAt) {
+            this.reason = reason;
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+        }
+
+        public static Result valid(String subject, long expiresAt) {
+            return new Result(null, subject, expiresAt);
+        }
+
+        public boolean isValid() {
+            return reason == null;
+        }
+    }
+
+    private static class Scratch {
+        private final byte[] signature;
+        private final byte[] expected;
+        private byte[] signed = new byte[512];
+        private byte[] claims = new byte[256];
+
+        private Scratch(int macLength) {
+            this.signature = new byte[macLength];
+            this.expected = new byte[TokenMinter.encodedLength(macLength)];
+        }
+
+        private byte[] signed(int length) {
+            if (signed.length < length) {
+                signed = new byte[length];
+            }
+            return signed;
+        }
+
+        // Decoded size of a base64url segment of the given length
+        private byte[] claims(int encodedLength) {
+            int length = encodedLength * 3 / 4 + 3;
+            if (claims.length < length) {
+                claims = new byte[length];
+            }
+            return claims;
+        }
+    }
+}
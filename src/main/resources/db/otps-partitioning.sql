@@ -0,0 +1,60 @@
+-- OTPs live in a table range-partitioned by created_at with one partition per day.
+-- Retention drops whole partitions (see OtpPartitionManager) instead of deleting rows.
+-- Runs on every startup before Hibernate; idempotent, and one transaction under an
+-- advisory lock, so nodes starting together take turns and the later ones find it done.
+-- Days come from current_date, the clock OtpPartitionManager reads too; the JDBC
+-- session's time zone is the JVM's, which also writes created_at.
+-- The block ends with @@ because it contains semicolons.
+DO $$
+DECLARE
+    pkey text;
+    day date;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('otps-partitioning.sql'));
+
+    -- Move a plain (pre-partitioning) otps table out of the way
+    IF EXISTS (SELECT 1 FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+               WHERE c.relname = 'otps' AND n.nspname = current_schema() AND c.relkind = 'r') THEN
+        ALTER TABLE otps RENAME TO otps_legacy;
+        -- Free the primary key name for the new table
+        SELECT conname INTO pkey FROM pg_constraint
+        WHERE conrelid = 'otps_legacy'::regclass AND contype = 'p';
+        IF pkey IS NOT NULL THEN
+            EXECUTE format('ALTER TABLE otps_legacy RENAME CONSTRAINT %I TO otps_legacy_pkey', pkey);
+        END IF;
+    END IF;
+
+    -- The partition key has to be part of the primary key
+    CREATE TABLE IF NOT EXISTS otps (
+        id          bigint       NOT NULL,
+        otp         varchar(255) NOT NULL,
+        identifier  varchar(255) NOT NULL,
+        type        varchar(255) NOT NULL CHECK (type IN ('EMAIL', 'SMS')),
+        purpose     varchar(255) NOT NULL CHECK (purpose IN ('REGISTRATION', 'FORGOT_PASSWORD', 'LOGIN_VERIFICATION')),
+        expiry_time timestamp(6) NOT NULL,
+        used        boolean      NOT NULL,
+        created_at  timestamp(6) NOT NULL,
+        used_at     timestamp(6),
+        PRIMARY KEY (id, created_at)
+    ) PARTITION BY RANGE (created_at);
+
+    CREATE INDEX IF NOT EXISTS idx_otps_lookup ON otps (identifier, type, purpose, created_at);
+
+    -- Safety net for rows outside the pre-created range; should stay empty
+    CREATE TABLE IF NOT EXISTS otps_default PARTITION OF otps DEFAULT;
+
+    -- Partitions from yesterday up to three days ahead; the manager keeps extending this
+    FOR day IN SELECT generate_series(current_date - 1, current_date + 3, interval '1 day')::date LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF otps FOR VALUES FROM (%L) TO (%L)',
+                       'otps_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+    END LOOP;
+
+    -- Carry over codes that may still be live, then drop the old table
+    IF to_regclass('otps_legacy') IS NOT NULL THEN
+        INSERT INTO otps (id, otp, identifier, type, purpose, expiry_time, used, created_at, used_at)
+        SELECT id, otp, identifier, type, purpose, expiry_time, used, created_at, used_at
+        FROM otps_legacy
+        WHERE created_at >= current_date - 1 AND expiry_time > now();
+        DROP TABLE otps_legacy;
+    END IF;
+END $$@@
@@ -0,0 +1,28 @@
+-- Global tables for user sharding (app.sharding.enabled), created on spring.datasource.
+-- Runs on every startup before the shard map is loaded; every statement is idempotent.
+
+-- Configured shards; the id picks each shard's disjoint range of users_seq / otps_seq values
+CREATE TABLE IF NOT EXISTS user_shards (
+    id   serial      PRIMARY KEY,
+    name varchar(64) NOT NULL UNIQUE
+);
+
+-- Which shard holds each bucket of usernames. While a bucket is MOVING its users can be
+-- read on shard but not written; previous_shard still holds copies until they are deleted
+CREATE TABLE IF NOT EXISTS user_shard_buckets (
+    bucket         integer      PRIMARY KEY,
+    shard          varchar(64)  NOT NULL,
+    state          varchar(16)  NOT NULL DEFAULT 'ACTIVE' CHECK (state IN ('ACTIVE', 'MOVING')),
+    target         varchar(64),
+    previous_shard varchar(64),
+    updated_at     timestamp(6) NOT NULL DEFAULT now()
+);
+
+-- Email and mobile number -> bucket of the owning user; the primary key keeps both unique across shards
+CREATE TABLE IF NOT EXISTS user_shard_index (
+    kind       varchar(16)  NOT NULL CHECK (kind IN ('EMAIL', 'MOBILE')),
+    value      varchar(255) NOT NULL,
+    bucket     integer      NOT NULL,
+    claimed_at timestamp(6) NOT NULL DEFAULT now(),
+    PRIMARY KEY (kind, value)
+);
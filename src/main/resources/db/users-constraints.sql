@@ -0,0 +1,25 @@
+-- Gives the unique constraints on users the names UserService maps duplicates by (see User).
+-- Tables created before they were named carry Hibernate's generated names instead.
+-- Runs on every startup before Hibernate; a no-op once renamed or on an empty database.
+DO $$
+DECLARE
+    col text;
+    current_name text;
+BEGIN
+    IF to_regclass('users') IS NULL THEN
+        RETURN;
+    END IF;
+    -- Nodes starting together take turns; the second finds nothing left to rename
+    PERFORM pg_advisory_xact_lock(hashtext('users-constraints.sql'));
+    FOREACH col IN ARRAY ARRAY['username', 'email', 'mobile_number'] LOOP
+        SELECT c.conname INTO current_name
+        FROM pg_constraint c JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.conrelid = 'users'::regclass AND c.contype = 'u' AND cardinality(c.conkey) = 1
+          AND a.attname = col
+        ORDER BY c.conname = 'users_' || col || '_key' DESC
+        LIMIT 1;
+        IF current_name IS NOT NULL AND current_name <> 'users_' || col || '_key' THEN
+            EXECUTE format('ALTER TABLE users RENAME CONSTRAINT %I TO %I', current_name, 'users_' || col || '_key');
+        END IF;
+    END LOOP;
+END $$@@
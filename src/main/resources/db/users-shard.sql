@@ -0,0 +1,24 @@
+-- The users table on every shard (app.sharding.enabled), matching the User entity.
+-- Hibernate only manages the schema of spring.datasource, so shards get it from here,
+-- together with db/otps-partitioning.sql. Every statement is idempotent.
+-- Sequences are created separately, starting at the shard's own offset (see ShardSchema).
+
+CREATE TABLE IF NOT EXISTS users (
+    id                 bigint       NOT NULL PRIMARY KEY,
+    first_name         varchar(255) NOT NULL,
+    last_name          varchar(255) NOT NULL,
+    username           varchar(255) NOT NULL CONSTRAINT users_username_key UNIQUE,
+    email              varchar(255) NOT NULL CONSTRAINT users_email_key UNIQUE,
+    password           varchar(255) NOT NULL,
+    mobile_number      varchar(255) NOT NULL CONSTRAINT users_mobile_number_key UNIQUE,
+    email_verified     boolean      NOT NULL,
+    mobile_verified    boolean      NOT NULL,
+    enabled            boolean      NOT NULL,
+    account_non_locked boolean      NOT NULL,
+    created_at         timestamp(6) NOT NULL,
+    updated_at         timestamp(6) NOT NULL,
+    last_login_at      timestamp(6),
+    roles              varchar(255)
+);
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS roles varchar(255);
@@ -0,0 +1,161 @@
+package com.auth.server.controller;
+
+import com.auth.server.dto.*;
+import com.auth.server.reactive.ReactiveUserService;
+import com.auth.server.security.AvailabilityRateLimiter;
+import com.auth.server.service.TokenIntrospectionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+
+/**
+ * Same contract as AuthController, served by WebFlux in the "reactive" profile
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthController {
+
+    private final ReactiveUserService userService;
+    private final AvailabilityRateLimiter availabilityRateLimiter;
+    private final TokenIntrospectionService tokenIntrospectionService;
+
+    /**
+     * Register a new user
+     * POST /api/auth/register
+     */
+    @PostMapping("/register")
+    public Mono<ResponseEntity<ApiResponse>> register(@Valid @RequestBody RegistrationRequest request) {
+        return userService.registerUser(request)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> badRequest(e));
+    }
+
+    /**
+     * Verify email with OTP
+     * POST /api/auth/verify-email
+     */
+    @PostMapping("/verify-email")
+    public Mono<ResponseEntity<ApiResponse>> verifyEmail(@Valid @RequestBody OtpVerificationRequest request) {
+        return userService.verifyEmail(request)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> badRequest(e));
+    }
+
+    /**
+     * Verify mobile number with OTP
+     * POST /api/auth/verify-mobile
+     */
+    @PostMapping("/verify-mobile")
+    public Mono<ResponseEntity<ApiResponse>> verifyMobile(@Valid @RequestBody OtpVerificationRequest request) {
+        return userService.verifyMobile(request)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> badRequest(e));
+    }
+
+    /**
+     * Login with username/email and password
+     * POST /api/auth/login
+     */
+    @PostMapping("/login")
+    public Mono<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest request) {
+        return userService.login(request)
+                .<ResponseEntity<?>>map(result -> result.isSuccess()
+                        ? ResponseEntity.ok(result.getAuthResponse())
+                        : result.getFailureResponse())
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new ApiResponse(false, e.getMessage()))));
+    }
+
+    /**
+     * Change password (requires authentication)
+     * POST /api/auth/change-password
+     */
+    @PostMapping("/change-password")
+    public Mono<ResponseEntity<ApiResponse>> changePassword(
+            @Valid @RequestBody ChangePasswordRequest request,
+            Mono<Principal> principal) {
+        return principal
+                .flatMap(user -> userService.changePassword(user.getName(), request))
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> badRequest(e));
+    }
+
+    /**
+     * Forgot password - send OTP to email
+     * POST /api/auth/forgot-password
+     */
+    @PostMapping("/forgot-password")
+    public Mono<ResponseEntity<ApiResponse>> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request) {
+        return userService.forgotPassword(request)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> badRequest(e));
+    }
+
+    /**
+     * Reset password with OTP
+     * POST /api/auth/reset-password
+     */
+    @PostMapping("/reset-password")
+    public Mono<ResponseEntity<ApiResponse>> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
+        return userService.resetPassword(request.getIdentifier(), request.getOtp(), request.getNewPassword())
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> badRequest(e));
+    }
+
+    /**
+     * Check whether a username and/or email is still available
+     * GET /api/auth/availability?username=...&email=...
+     */
+    @GetMapping("/availability")
+    public Mono<ResponseEntity<ApiResponse>> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            ServerHttpRequest httpRequest) {
+        InetSocketAddress remoteAddress = httpRequest.getRemoteAddress();
+        String client = remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : "unknown";
+        if (!availabilityRateLimiter.tryAcquire(client)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(new ApiResponse(false, "Too many requests. Please slow down.")));
+        }
+        return userService.checkAvailability(username, email).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Verify a batch of tokens for an API gateway
+     * POST /api/auth/introspect
+     */
+    @PostMapping("/introspect")
+    public Mono<ResponseEntity<ApiResponse>> introspect(@Valid @RequestBody IntrospectionRequest request) {
+        // CPU bound, keep it off the event loop
+        return Mono.fromCallable(() -> ResponseEntity.ok(new ApiResponse(true, "Tokens introspected",
+                        tokenIntrospectionService.introspect(request.getTokens()))))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Resend OTP
+     * POST /api/auth/resend-otp
+     */
+    @PostMapping("/resend-otp")
+    public Mono<ResponseEntity<ApiResponse>> resendOtp(@RequestBody ResendOtpRequest request) {
+        return userService.resendOtp(request.getIdentifier(), request.getType(), request.getPurpose())
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> badRequest(e));
+    }
+
+    private Mono<ResponseEntity<ApiResponse>> badRequest(Throwable e) {
+        return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage())));
+    }
+}
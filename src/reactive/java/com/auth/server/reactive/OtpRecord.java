@@ -0,0 +1,31 @@
+package com.auth.server.reactive;
+
+import com.auth.server.entity.Otp;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC mapping of the otps table (same schema as the JPA Otp entity)
+ */
+@Table("otps")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtpRecord {
+
+    @Id
+    private Long id;
+    private String otp;
+    private String identifier;
+    private Otp.OtpType type;
+    private Otp.OtpPurpose purpose;
+    private LocalDateTime expiryTime;
+    private boolean used;
+    private LocalDateTime createdAt;
+    private LocalDateTime usedAt;
+}
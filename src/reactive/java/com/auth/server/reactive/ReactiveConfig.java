@@ -0,0 +1,84 @@
+package com.auth.server.reactive;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * R2DBC for the reactive runtime, switched on by the "reactive" profile alone.
+ * Boot's R2DBC auto-configuration stays excluded (see application.yaml): in the
+ * servlet runtime it would build a pool nobody uses and its reactive transaction
+ * manager would replace the JPA one.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties({R2dbcProperties.class, DataSourceProperties.class})
+@EnableR2dbcRepositories
+@RequiredArgsConstructor
+public class ReactiveConfig extends AbstractR2dbcConfiguration {
+
+    private final R2dbcProperties r2dbcProperties;
+
+    // spring.r2dbc.url, username, password and pool sizes, as Boot would read them
+    @Bean(destroyMethod = "dispose")
+    @Override
+    public ConnectionPool connectionFactory() {
+        ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(r2dbcProperties.getUrl())
+                .username(r2dbcProperties.getUsername())
+                .password(r2dbcProperties.getPassword())
+                .build();
+        R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .build());
+    }
+
+    /**
+     * Boot backs off its DataSource as soon as a ConnectionFactory bean exists, but
+     * JPA still runs the scheduled jobs here. ReplicaRoutingConfig provides one
+     * when replica routing is on.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replica-routing.enabled", havingValue = "false", matchIfMissing = true)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * BCrypt is CPU bound and takes tens of milliseconds, so it must never run
+     * on an event loop thread. Bounded to the core count so hashing bursts
+     * queue up instead of starving everything else.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler(
+            @Value("${app.reactive.hashing-queue-size:10000}") int queueSize) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(cores, queueSize, "bcrypt");
+    }
+
+    // Not registered as a TransactionManager bean so it cannot shadow the JPA one
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+}
@@ -0,0 +1,55 @@
+package com.auth.server.reactive;
+
+import com.auth.server.repository.SequenceAllocator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out ids from the Hibernate *_seq sequences with the same pooled-lo
+ * blocks as SequenceAllocator, so both runtimes can share one schema.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveIdAllocator {
+
+    private final DatabaseClient databaseClient;
+
+    // sequence name -> {next id, end of block (exclusive)}
+    private final Map<String, long[]> blocks = new HashMap<>();
+
+    public Mono<Long> nextId(String sequenceName) {
+        return Mono.defer(() -> {
+            Long id = takeFromBlock(sequenceName);
+            if (id != null) {
+                return Mono.just(id);
+            }
+
+            return databaseClient.sql("SELECT nextval('" + sequenceName + "')")
+                    .map(row -> row.get(0, Long.class))
+                    .one()
+                    .map(start -> {
+                        synchronized (blocks) {
+                            blocks.put(sequenceName, new long[]{start + 1, start + SequenceAllocator.BLOCK_SIZE});
+                        }
+                        return start;
+                    });
+        });
+    }
+
+    private Long takeFromBlock(String sequenceName) {
+        synchronized (blocks) {
+            long[] block = blocks.get(sequenceName);
+            if (block != null && block[0] < block[1]) {
+                return block[0]++;
+            }
+            return null;
+        }
+    }
+}
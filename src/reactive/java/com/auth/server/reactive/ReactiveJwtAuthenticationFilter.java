@@ -0,0 +1,58 @@
+package com.auth.server.reactive;
+
+import com.auth.server.util.JwtUtil;
+import com.auth.server.util.TokenValidator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * WebFlux counterpart of JwtAuthenticationFilter
+ */
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private final JwtUtil jwtUtil;
+    private final ReactiveUserDetailsService userDetailsService;
+
+    public ReactiveJwtAuthenticationFilter(JwtUtil jwtUtil, ReactiveUserDetailsService userDetailsService) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String jwt = getJwtFromRequest(exchange);
+        if (!StringUtils.hasText(jwt)) {
+            return chain.filter(exchange);
+        }
+        TokenValidator.Result token = jwtUtil.validate(jwt);
+        if (!token.isValid()) {
+            return chain.filter(exchange);
+        }
+
+        return userDetailsService.findByUsername(token.getSubject())
+                .map(userDetails -> Optional.of(new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities())))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(authentication -> authentication
+                        .map(auth -> chain.filter(exchange)
+                                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth)))
+                        .orElseGet(() -> chain.filter(exchange)));
+    }
+
+    private String getJwtFromRequest(ServerWebExchange exchange) {
+        String bearerToken = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.auth.server.reactive;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ReactiveOtpRepository extends R2dbcRepository<OtpRecord, Long> {
+
+    // created_at > :since lets Postgres prune all but the newest otps partitions
+
+    @Query("""
+            SELECT * FROM otps
+            WHERE identifier = :identifier AND type = :type AND purpose = :purpose AND used = false
+              AND created_at > :since
+            ORDER BY created_at DESC
+            LIMIT 1
+            """)
+    Mono<OtpRecord> findLatestUnused(String identifier, String type, String purpose, LocalDateTime since);
+
+    @Modifying
+    @Query("""
+            DELETE FROM otps
+            WHERE identifier = :identifier AND type = :type AND purpose = :purpose AND created_at > :since
+            """)
+    Mono<Integer> deleteByIdentifierAndTypeAndPurpose(String identifier, String type, String purpose,
+                                                      LocalDateTime since);
+
+    // Marks the OTP used only if it is still unused and unexpired, in one statement
+    @Modifying
+    @Query("""
+            UPDATE otps SET used = true, used_at = :now
+            WHERE identifier = :identifier AND otp = :otp AND type = :type AND purpose = :purpose
+              AND used = false AND expiry_time > :now AND created_at > :since
+            """)
+    Mono<Integer> consume(String identifier, String otp, String type, String purpose, LocalDateTime now,
+                          LocalDateTime since);
+}
@@ -0,0 +1,68 @@
+package com.auth.server.reactive;
+
+import com.auth.server.entity.Otp;
+import com.auth.server.service.OtpDeliveryService;
+import com.auth.server.util.OtpGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Non-blocking counterpart of OtpService
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveOtpService {
+
+    private final ReactiveOtpRepository otpRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final ReactiveIdAllocator idAllocator;
+    private final OtpGenerator otpGenerator;
+    private final OtpDeliveryService otpDeliveryService;
+
+    @Value("${otp.expiration}")
+    private long otpExpirationMs;
+
+    /**
+     * Replace the current OTP and send it. Must run inside the caller's transaction
+     */
+    public Mono<String> generateAndSendOtp(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        String otpCode = otpGenerator.generateOtp();
+        LocalDateTime now = LocalDateTime.now();
+
+        return otpRepository.deleteByIdentifierAndTypeAndPurpose(identifier, type.name(), purpose.name(), oldestLiveCreatedAt())
+                .then(idAllocator.nextId("otps_seq"))
+                .flatMap(id -> entityTemplate.insert(new OtpRecord(id, otpCode, identifier, type, purpose,
+                        now.plusSeconds(otpExpirationMs / 1000), false, now, null)))
+                // Email and SMS providers are blocking clients
+                .then(Mono.fromRunnable(() -> otpDeliveryService.deliver(identifier, otpCode, type, purpose))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .thenReturn(otpCode);
+    }
+
+    public Mono<Boolean> verifyOtp(String identifier, String otpCode, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        return otpRepository.consume(identifier, otpCode, type.name(), purpose.name(), LocalDateTime.now(),
+                        oldestLiveCreatedAt())
+                .map(updated -> updated > 0);
+    }
+
+    public Mono<Void> resendOtp(String identifier, Otp.OtpType type, Otp.OtpPurpose purpose) {
+        return otpRepository.findLatestUnused(identifier, type.name(), purpose.name(), oldestLiveCreatedAt())
+                .filter(recent -> recent.getCreatedAt().isAfter(LocalDateTime.now().minusMinutes(1)))
+                .flatMap(recent -> Mono.<String>error(new RuntimeException("Please wait before requesting a new OTP")))
+                .switchIfEmpty(Mono.defer(() -> generateAndSendOtp(identifier, type, purpose)))
+                .then();
+    }
+
+    private LocalDateTime oldestLiveCreatedAt() {
+        return LocalDateTime.now().minus(otpExpirationMs, ChronoUnit.MILLIS);
+    }
+}
@@ -0,0 +1,79 @@
+package com.auth.server.reactive;
+
+import com.auth.server.config.SecurityConfig;
+import com.auth.server.security.Role;
+import com.auth.server.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+
+/**
+ * WebFlux counterpart of SecurityConfig: same public endpoints, same CORS
+ * policy, stateless JWT authentication.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+@RequiredArgsConstructor
+public class ReactiveSecurityConfig {
+
+    private final JwtUtil jwtUtil;
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         ReactiveUserDetailsService userDetailsService) {
+        UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+        corsSource.registerCorsConfiguration("/**", SecurityConfig.corsConfiguration());
+
+        return http
+                .cors(cors -> cors.configurationSource(corsSource))
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers(SecurityConfig.PUBLIC_ENDPOINTS).permitAll()
+                        .pathMatchers("/api/admin/**").hasRole("ADMIN")
+                        .pathMatchers(SecurityConfig.INTROSPECTION_ENDPOINT).hasAnyRole("INTROSPECTION", "ADMIN")
+                        .anyExchange().authenticated()
+                )
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN))
+                )
+                .addFilterAt(new ReactiveJwtAuthenticationFilter(jwtUtil, userDetailsService),
+                        SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    @Bean
+    public ReactiveUserDetailsService reactiveUserDetailsService(ReactiveUserRepository userRepository) {
+        return username -> userRepository.findByUsername(username)
+                .map(user -> new User(
+                        user.getUsername(),
+                        user.getPassword(),
+                        user.isEnabled(),
+                        true,
+                        true,
+                        user.isAccountNonLocked(),
+                        Role.authorities(user.getRoles())
+                ));
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+}
@@ -0,0 +1,31 @@
+package com.auth.server.reactive;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ReactiveUserRepository extends R2dbcRepository<UserRecord, Long> {
+
+    Mono<UserRecord> findByUsername(String username);
+
+    Mono<UserRecord> findByEmail(String email);
+
+    Mono<UserRecord> findByMobileNumber(String mobileNumber);
+
+    Mono<UserRecord> findByUsernameOrEmail(String username, String email);
+
+    Mono<Boolean> existsByUsername(String username);
+
+    Mono<Boolean> existsByEmail(String email);
+
+    Mono<Boolean> existsByMobileNumber(String mobileNumber);
+
+    @Modifying
+    @Query("UPDATE users SET last_login_at = :lastLoginAt WHERE id = :id")
+    Mono<Integer> updateLastLoginAt(Long id, LocalDateTime lastLoginAt);
+}
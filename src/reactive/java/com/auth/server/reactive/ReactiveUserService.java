@@ -0,0 +1,237 @@
+package com.auth.server.reactive;
+
+import com.auth.server.dto.*;
+import com.auth.server.entity.Otp;
+import com.auth.server.service.AvailabilityService;
+import com.auth.server.service.OtpDeliveryService;
+import com.auth.server.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of UserService with the same messages and rules.
+ * BCrypt runs on the bounded hashing scheduler, blocking mail/SMS clients on boundedElastic.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserService {
+
+    private final ReactiveUserRepository userRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final ReactiveIdAllocator idAllocator;
+    private final ReactiveOtpService otpService;
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler passwordHashingScheduler;
+    private final TransactionalOperator reactiveTransactionalOperator;
+    private final OtpDeliveryService otpDeliveryService;
+    private final JwtUtil jwtUtil;
+    private final AvailabilityService availabilityService;
+
+    public Mono<ApiResponse> registerUser(RegistrationRequest request) {
+        return encode(request.getPassword())
+                .zipWith(idAllocator.nextId("users_seq"))
+                .flatMap(hashAndId -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    UserRecord user = new UserRecord(hashAndId.getT2(), request.getFirstName(), request.getLastName(),
+                            request.getUsername(), request.getEmail(), hashAndId.getT1(), request.getMobileNumber(),
+                            false, false, false, true, now, now, null, null);
+
+                    // Insert optimistically; the unique constraints reject duplicates
+                    return entityTemplate.insert(user)
+                            .then(otpService.generateAndSendOtp(user.getEmail(), Otp.OtpType.EMAIL, Otp.OtpPurpose.REGISTRATION))
+                            .then(otpService.generateAndSendOtp(user.getMobileNumber(), Otp.OtpType.SMS, Otp.OtpPurpose.REGISTRATION))
+                            .as(reactiveTransactionalOperator::transactional)
+                            .doOnSuccess(otp -> availabilityService.record(user.getUsername(), user.getEmail()))
+                            .thenReturn(new ApiResponse(true, "Registration successful. Please verify your email and mobile number."));
+                })
+                .onErrorResume(DataIntegrityViolationException.class, e -> getDuplicateMessage(request)
+                        .map(message -> new ApiResponse(false, message)));
+    }
+
+    public Mono<ApiResponse> verifyEmail(OtpVerificationRequest request) {
+        return otpService.verifyOtp(request.getIdentifier(), request.getOtp(), Otp.OtpType.EMAIL, Otp.OtpPurpose.REGISTRATION)
+                .flatMap(isValid -> {
+                    if (!isValid) {
+                        return Mono.just(ErrorResponses.INVALID_OTP);
+                    }
+
+                    return userRepository.findByEmail(request.getIdentifier())
+                            .flatMap(user -> {
+                                user.setEmailVerified(true);
+                                user.setUpdatedAt(LocalDateTime.now());
+
+                                // If both email and mobile are verified, enable the account
+                                Mono<Void> welcome = Mono.empty();
+                                if (user.isMobileVerified()) {
+                                    user.setEnabled(true);
+                                    welcome = blocking(() -> otpDeliveryService.sendWelcomeEmail(user.getEmail(), user.getFirstName()));
+                                }
+
+                                return userRepository.save(user)
+                                        .then(welcome)
+                                        .thenReturn(new ApiResponse(true, "Email verified successfully"));
+                            })
+                            .defaultIfEmpty(ErrorResponses.USER_NOT_FOUND);
+                })
+                .as(reactiveTransactionalOperator::transactional);
+    }
+
+    public Mono<ApiResponse> verifyMobile(OtpVerificationRequest request) {
+        return otpService.verifyOtp(request.getIdentifier(), request.getOtp(), Otp.OtpType.SMS, Otp.OtpPurpose.REGISTRATION)
+                .flatMap(isValid -> {
+                    if (!isValid) {
+                        return Mono.just(ErrorResponses.INVALID_OTP);
+                    }
+
+                    return userRepository.findByMobileNumber(request.getIdentifier())
+                            .flatMap(user -> {
+                                user.setMobileVerified(true);
+                                user.setUpdatedAt(LocalDateTime.now());
+
+                                // If both email and mobile are verified, enable the account
+                                Mono<Void> welcome = Mono.empty();
+                                if (user.isEmailVerified()) {
+                                    user.setEnabled(true);
+                                    welcome = blocking(() -> otpDeliveryService.sendWelcomeSms(user.getMobileNumber(), user.getFirstName()));
+                                }
+
+                                return userRepository.save(user)
+                                        .then(welcome)
+                                        .thenReturn(new ApiResponse(true, "Mobile number verified successfully"));
+                            })
+                            .defaultIfEmpty(ErrorResponses.USER_NOT_FOUND);
+                })
+                .as(reactiveTransactionalOperator::transactional);
+    }
+
+    public Mono<LoginResult> login(LoginRequest request) {
+        return userRepository.findByUsernameOrEmail(request.getUsername(), request.getUsername())
+                .flatMap(user -> matches(request.getPassword(), user.getPassword())
+                        .flatMap(matches -> {
+                            if (!matches) {
+                                return Mono.just(LoginResult.INVALID_CREDENTIALS);
+                            }
+                            if (!user.isEnabled()) {
+                                return Mono.just(LoginResult.NOT_VERIFIED);
+                            }
+                            if (!user.isAccountNonLocked()) {
+                                return Mono.just(LoginResult.LOCKED);
+                            }
+
+                            return userRepository.updateLastLoginAt(user.getId(), LocalDateTime.now())
+                                    .thenReturn(LoginResult.success(new AuthResponse(jwtUtil.generateToken(user.getUsername()),
+                                            user.getUsername(), user.getEmail(), "Login successful")));
+                        }))
+                .defaultIfEmpty(LoginResult.INVALID_CREDENTIALS);
+    }
+
+    public Mono<ApiResponse> changePassword(String username, ChangePasswordRequest request) {
+        return userRepository.findByUsername(username)
+                .flatMap(user -> matches(request.getOldPassword(), user.getPassword())
+                        .flatMap(matches -> {
+                            if (!matches) {
+                                return Mono.just(ErrorResponses.OLD_PASSWORD_INCORRECT);
+                            }
+
+                            return encode(request.getNewPassword())
+                                    .flatMap(hash -> {
+                                        user.setPassword(hash);
+                                        user.setUpdatedAt(LocalDateTime.now());
+                                        return userRepository.save(user);
+                                    })
+                                    .thenReturn(new ApiResponse(true, "Password changed successfully"));
+                        }))
+                .defaultIfEmpty(ErrorResponses.USER_NOT_FOUND);
+    }
+
+    public Mono<ApiResponse> forgotPassword(ForgotPasswordRequest request) {
+        return userRepository.findByUsernameOrEmail(request.getIdentifier(), request.getIdentifier())
+                .flatMap(user -> otpService.generateAndSendOtp(user.getEmail(), Otp.OtpType.EMAIL, Otp.OtpPurpose.FORGOT_PASSWORD)
+                        .as(reactiveTransactionalOperator::transactional)
+                        .thenReturn(new ApiResponse(true, "OTP has been sent to your registered email")))
+                // Don't reveal if user exists or not for security
+                .defaultIfEmpty(new ApiResponse(true, "If the account exists, an OTP has been sent to your registered email"));
+    }
+
+    public Mono<ApiResponse> resetPassword(String email, String otp, String newPassword) {
+        // Hash before opening the transaction so BCrypt never holds a connection
+        return encode(newPassword)
+                .flatMap(hash -> otpService.verifyOtp(email, otp, Otp.OtpType.EMAIL, Otp.OtpPurpose.FORGOT_PASSWORD)
+                        .flatMap(isValid -> {
+                            if (!isValid) {
+                                return Mono.just(ErrorResponses.INVALID_OTP);
+                            }
+
+                            return userRepository.findByEmail(email)
+                                    .flatMap(user -> {
+                                        user.setPassword(hash);
+                                        user.setUpdatedAt(LocalDateTime.now());
+                                        return userRepository.save(user)
+                                                .thenReturn(new ApiResponse(true, "Password reset successfully"));
+                                    })
+                                    .defaultIfEmpty(ErrorResponses.USER_NOT_FOUND);
+                        })
+                        .as(reactiveTransactionalOperator::transactional));
+    }
+
+    public Mono<ApiResponse> checkAvailability(String username, String email) {
+        // Filter misses fall back to a JPA exists query
+        return Mono.fromCallable(() -> {
+                    Map<String, Boolean> availability = new LinkedHashMap<>();
+                    if (username != null) {
+                        availability.put("username", availabilityService.isUsernameAvailable(username));
+                    }
+                    if (email != null) {
+                        availability.put("email", availabilityService.isEmailAvailable(email));
+                    }
+                    return new ApiResponse(true, "Availability checked", availability);
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<ApiResponse> resendOtp(String identifier, String type, String purpose) {
+        return Mono.defer(() -> otpService.resendOtp(identifier,
+                        Otp.OtpType.valueOf(type.toUpperCase()),
+                        Otp.OtpPurpose.valueOf(purpose.toUpperCase())))
+                .as(reactiveTransactionalOperator::transactional)
+                .thenReturn(new ApiResponse(true, "OTP resent successfully"))
+                .onErrorResume(e -> Mono.just(new ApiResponse(false, e.getMessage())));
+    }
+
+    // R2DBC does not name the violated constraint portably, so ask which value is taken
+    private Mono<String> getDuplicateMessage(RegistrationRequest request) {
+        return userRepository.existsByUsername(request.getUsername())
+                .flatMap(username -> username ? Mono.just("Username already exists")
+                        : userRepository.existsByEmail(request.getEmail())
+                        .flatMap(email -> email ? Mono.just("Email already exists")
+                                : userRepository.existsByMobileNumber(request.getMobileNumber())
+                                .map(mobile -> mobile ? "Mobile number already exists" : "User already exists")));
+    }
+
+    private Mono<String> encode(String rawPassword) {
+        return Mono.fromCallable(() -> passwordEncoder.encode(rawPassword))
+                .subscribeOn(passwordHashingScheduler);
+    }
+
+    private Mono<Boolean> matches(String rawPassword, String encodedPassword) {
+        return Mono.fromCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword))
+                .subscribeOn(passwordHashingScheduler);
+    }
+
+    private Mono<Void> blocking(Runnable task) {
+        return Mono.fromRunnable(task).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+}
@@ -0,0 +1,36 @@
+package com.auth.server.reactive;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC mapping of the users table (same schema as the JPA User entity)
+ */
+@Table("users")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRecord {
+
+    @Id
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private String email;
+    private String password;
+    private String mobileNumber;
+    private boolean emailVerified;
+    private boolean mobileVerified;
+    private boolean enabled;
+    private boolean accountNonLocked;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime lastLoginAt;
+    private String roles;
+}
@@ -0,0 +1,103 @@
+package com.auth.server.service;
+
+import com.auth.server.audit.AuditLog;
+import com.auth.server.entity.Otp;
+import com.auth.server.repository.OtpRepository;
+import com.auth.server.repository.OtpWriteBatcher;
+import com.auth.server.util.OtpGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OtpServiceTest {
+
+    private static final String IDENTIFIER = "john.doe@example.com";
+
+    private final OtpDeliveryService otpDeliveryService = mock(OtpDeliveryService.class);
+    private final OtpGenerator otpGenerator = mock(OtpGenerator.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private OtpService otpService;
+
+    @BeforeEach
+    void setUp() {
+        otpService = new OtpService(mock(OtpRepository.class), mock(OtpWriteBatcher.class), otpGenerator,
+                otpDeliveryService, mock(StatelessOtpService.class), mock(AuditLog.class), transactionTemplate,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(otpService, "otpExpirationMs", 300_000L);
+        ReflectionTestUtils.setField(otpService, "coalesceMaxWaitMs", 200L);
+        otpService.init();
+        when(otpGenerator.generateOtp()).thenReturn("111111", "222222");
+        // Runs the callback on the calling thread, joining whatever transaction is active there
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void sendingTwiceInOneTransactionDoesNotWaitOnItself() {
+        String[] codes = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            beginTransaction();
+            try {
+                return new String[]{
+                        otpService.generateAndSendOtp(IDENTIFIER, Otp.OtpType.EMAIL, Otp.OtpPurpose.REGISTRATION),
+                        otpService.generateAndSendOtp(IDENTIFIER, Otp.OtpType.EMAIL, Otp.OtpPurpose.REGISTRATION)};
+            } finally {
+                tearDown();
+            }
+        });
+
+        assertEquals("111111", codes[0]);
+        assertEquals("222222", codes[1]);
+        verify(otpDeliveryService, times(2)).deliver(eq(IDENTIFIER), anyString(),
+                eq(Otp.OtpType.EMAIL), eq(Otp.OtpPurpose.REGISTRATION));
+    }
+
+    @Test
+    void reenteringTheSameKeyFromTheLeaderFallsBackAfterTheMaxWait() {
+        // The first delivery sends again for the same key on the same thread, while its own flight is open
+        AtomicInteger deliveries = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (deliveries.incrementAndGet() == 1) {
+                otpService.generateAndSendOtp(IDENTIFIER, Otp.OtpType.EMAIL, Otp.OtpPurpose.FORGOT_PASSWORD);
+            }
+            return null;
+        }).when(otpDeliveryService).deliver(any(), any(), any(), any());
+
+        String code = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                otpService.generateAndSendOtp(IDENTIFIER, Otp.OtpType.EMAIL, Otp.OtpPurpose.FORGOT_PASSWORD));
+
+        assertEquals("111111", code);
+        assertEquals(2, deliveries.get());
+    }
+
+    private static void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+}
@@ -0,0 +1,64 @@
+package com.auth.verifier;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenVerifier against a cached JJWT parser on a token minted exactly like
+ * JwtUtil.generateToken. Run with -prof gc (the exec default) for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerifierBenchmark {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private String token;
+    private TokenVerifier verifier;
+    private JwtParser jjwtParser;
+
+    @Setup
+    public void setup() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        Date now = new Date();
+        token = Jwts.builder()
+                .subject("john_doe")
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 86_400_000L))
+                .signWith(key)
+                .compact();
+
+        verifier = TokenVerifier.builder().secret(SECRET).build();
+        jjwtParser = Jwts.parser().verifyWith(key).build();
+    }
+
+    @Benchmark
+    public VerifiedToken tokenVerifier() {
+        return verifier.verify(token);
+    }
+
+    @Benchmark
+    public Object jjwt() {
+        return jjwtParser.parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,63 @@
+package com.auth.verifier;
+
+import java.util.Arrays;
+
+/**
+ * Unpadded base64url decoding straight from a region of the token string
+ * into a caller-supplied buffer.
+ */
+final class Base64Url {
+
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private Base64Url() {
+    }
+
+    /**
+     * Number of bytes encoded by the given number of characters, or -1 if no
+     * unpadded encoding has that length
+     */
+    static int decodedLength(int chars) {
+        int remainder = chars % 4;
+        if (remainder == 1) {
+            return -1;
+        }
+        return chars / 4 * 3 + (remainder == 0 ? 0 : remainder - 1);
+    }
+
+    /**
+     * Decode s[from, to) into out, which must hold decodedLength(to - from) bytes.
+     * Returns false on characters outside the base64url alphabet.
+     */
+    static boolean decode(String s, int from, int to, byte[] out) {
+        int bits = 0;
+        int bitCount = 0;
+        int position = 0;
+
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            int value = c < 128 ? DECODE[c] : -1;
+            if (value < 0) {
+                return false;
+            }
+
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[position++] = (byte) (bits >>> bitCount);
+            }
+        }
+
+        // Leftover bits must be zero in a canonical encoding
+        return (bits & ((1 << bitCount) - 1)) == 0;
+    }
+}
@@ -0,0 +1,294 @@
+package com.auth.verifier;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal reader for the flat JSON objects in a token header and payload.
+ * It extracts only the members the verifier needs and skips everything else
+ * without building a tree.
+ */
+final class CompactJson {
+
+    private static final byte[] ALG = ascii("alg");
+    private static final byte[] ZIP = ascii("zip");
+    private static final byte[] CRIT = ascii("crit");
+    private static final byte[] SUB = ascii("sub");
+    private static final byte[] EXP = ascii("exp");
+    private static final byte[] IAT = ascii("iat");
+    private static final byte[] NBF = ascii("nbf");
+
+    static final long ABSENT = Long.MIN_VALUE;
+
+    private final byte[] json;
+    private final int length;
+    private int position;
+    private int stringStart;
+
+    private CompactJson(byte[] json, int length) {
+        this.json = json;
+        this.length = length;
+    }
+
+    static class Claims {
+        String subject;
+        long expiration = ABSENT;
+        long issuedAt = ABSENT;
+        long notBefore = ABSENT;
+    }
+
+    /**
+     * Read the "alg" member of a header, rejecting headers that ask for
+     * features this verifier does not implement
+     */
+    static String readAlgorithm(byte[] json, int length) {
+        CompactJson reader = new CompactJson(json, length);
+        String algorithm = null;
+
+        reader.expect('{');
+        if (!reader.consume('}')) {
+            do {
+                int keyEnd = reader.skipString();
+                int keyStart = reader.stringStart;
+                reader.expect(':');
+
+                if (reader.keyEquals(keyStart, keyEnd, ALG)) {
+                    algorithm = reader.readString();
+                } else if (reader.keyEquals(keyStart, keyEnd, ZIP) || reader.keyEquals(keyStart, keyEnd, CRIT)) {
+                    throw new TokenVerificationException(TokenVerificationException.Reason.UNSUPPORTED_ALGORITHM,
+                            "Compressed tokens and critical header parameters are not supported");
+                } else {
+                    reader.skipValue();
+                }
+            } while (reader.consume(','));
+            reader.expect('}');
+        }
+        reader.expectEnd();
+
+        if (algorithm == null) {
+            throw malformed("Header has no algorithm");
+        }
+        return algorithm;
+    }
+
+    static Claims readClaims(byte[] json, int length) {
+        CompactJson reader = new CompactJson(json, length);
+        Claims claims = new Claims();
+
+        reader.expect('{');
+        if (!reader.consume('}')) {
+            do {
+                int keyEnd = reader.skipString();
+                int keyStart = reader.stringStart;
+                reader.expect(':');
+
+                if (reader.keyEquals(keyStart, keyEnd, SUB)) {
+                    claims.subject = reader.readString();
+                } else if (reader.keyEquals(keyStart, keyEnd, EXP)) {
+                    claims.expiration = reader.readNumericDate();
+                } else if (reader.keyEquals(keyStart, keyEnd, IAT)) {
+                    claims.issuedAt = reader.readNumericDate();
+                } else if (reader.keyEquals(keyStart, keyEnd, NBF)) {
+                    claims.notBefore = reader.readNumericDate();
+                } else {
+                    reader.skipValue();
+                }
+            } while (reader.consume(','));
+            reader.expect('}');
+        }
+        reader.expectEnd();
+        return claims;
+    }
+
+    private boolean keyEquals(int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (json[start + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString() {
+        int end = skipString();
+        int start = stringStart;
+
+        for (int i = start; i < end; i++) {
+            if (json[i] == '\\') {
+                return unescape(start, end);
+            }
+        }
+        return new String(json, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // NumericDate: seconds since the epoch, fractions are truncated
+    private long readNumericDate() {
+        skipWhitespace();
+        int start = position;
+        long value = 0;
+        while (position < length && json[position] >= '0' && json[position] <= '9') {
+            if (value > (Long.MAX_VALUE - 9) / 10) {
+                throw malformed("Numeric date out of range");
+            }
+            value = value * 10 + (json[position++] - '0');
+        }
+        if (position == start) {
+            throw malformed("Expected a numeric date");
+        }
+        if (position < length && json[position] == '.') {
+            position++;
+            while (position < length && json[position] >= '0' && json[position] <= '9') {
+                position++;
+            }
+        }
+        return value;
+    }
+
+    private void skipValue() {
+        skipWhitespace();
+        if (position >= length) {
+            throw malformed("Unexpected end of JSON");
+        }
+
+        byte b = json[position];
+        if (b == '"') {
+            skipString();
+        } else if (b == '{' || b == '[') {
+            skipContainer();
+        } else {
+            // Number, true, false or null
+            int start = position;
+            while (position < length && json[position] != ',' && json[position] != '}'
+                    && json[position] != ']' && !isWhitespace(json[position])) {
+                position++;
+            }
+            if (position == start) {
+                throw malformed("Expected a value");
+            }
+        }
+    }
+
+    private void skipContainer() {
+        int depth = 0;
+        do {
+            if (position >= length) {
+                throw malformed("Unexpected end of JSON");
+            }
+            byte b = json[position];
+            if (b == '"') {
+                skipString();
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+            position++;
+        } while (depth > 0);
+    }
+
+    // Skips a string, leaving its first character in stringStart and returning the index of its closing quote
+    private int skipString() {
+        skipWhitespace();
+        if (position >= length || json[position] != '"') {
+            throw malformed("Expected a string");
+        }
+        stringStart = ++position;
+        while (position < length) {
+            byte b = json[position];
+            if (b == '\\') {
+                position += 2;
+            } else if (b == '"') {
+                return position++;
+            } else {
+                position++;
+            }
+        }
+        throw malformed("Unterminated string");
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        int runStart = start;
+        int i = start;
+        while (i < end) {
+            if (json[i] != '\\') {
+                i++;
+                continue;
+            }
+
+            sb.append(new String(json, runStart, i - runStart, StandardCharsets.UTF_8));
+            if (i + 1 >= end) {
+                throw malformed("Invalid escape");
+            }
+            byte escaped = json[i + 1];
+            switch (escaped) {
+                case '"', '\\', '/' -> sb.append((char) escaped);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (i + 6 > end) {
+                        throw malformed("Invalid escape");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(new String(json, i + 2, 4, StandardCharsets.US_ASCII), 16));
+                    } catch (NumberFormatException e) {
+                        throw malformed("Invalid escape");
+                    }
+                    i += 4;
+                }
+                default -> throw malformed("Invalid escape");
+            }
+            i += 2;
+            runStart = i;
+        }
+        sb.append(new String(json, runStart, end - runStart, StandardCharsets.UTF_8));
+        return sb.toString();
+    }
+
+    private void expect(char c) {
+        if (!consume(c)) {
+            throw malformed("Expected '" + c + "'");
+        }
+    }
+
+    private boolean consume(char c) {
+        skipWhitespace();
+        if (position < length && json[position] == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectEnd() {
+        skipWhitespace();
+        if (position != length) {
+            throw malformed("Trailing data after JSON object");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < length && isWhitespace(json[position])) {
+            position++;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static TokenVerificationException malformed(String message) {
+        return new TokenVerificationException(TokenVerificationException.Reason.MALFORMED, message);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
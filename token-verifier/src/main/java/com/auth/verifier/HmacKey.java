@@ -0,0 +1,66 @@
+package com.auth.verifier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * One shared secret, with the algorithm JJWT's Keys.hmacShaKeyFor picks for
+ * its length and an initialized Mac per thread, so verification never
+ * repeats the key setup.
+ */
+final class HmacKey {
+
+    private final String algorithm;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    HmacKey(String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        this.algorithm = algorithmFor(bytes.length);
+        this.key = new SecretKeySpec(bytes, javaAlgorithm(algorithm));
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        newMac(); // fail fast on an unusable key
+    }
+
+    String getAlgorithm() {
+        return algorithm;
+    }
+
+    Mac mac() {
+        return macs.get();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + key.getAlgorithm(), e);
+        }
+    }
+
+    private static String algorithmFor(int keyLength) {
+        if (keyLength >= 64) {
+            return "HS512";
+        }
+        if (keyLength >= 48) {
+            return "HS384";
+        }
+        if (keyLength >= 32) {
+            return "HS256";
+        }
+        throw new IllegalArgumentException("Secret must be at least 32 bytes, got " + keyLength);
+    }
+
+    private static String javaAlgorithm(String algorithm) {
+        return switch (algorithm) {
+            case "HS256" -> "HmacSHA256";
+            case "HS384" -> "HmacSHA384";
+            case "HS512" -> "HmacSHA512";
+            default -> null;
+        };
+    }
+}
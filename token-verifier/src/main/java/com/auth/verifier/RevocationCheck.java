@@ -0,0 +1,14 @@
+package com.auth.verifier;
+
+/**
+ * Hook for rejecting tokens that verify but should no longer be honoured,
+ * e.g. a denylist of subjects or a "tokens issued before" cut-off per user.
+ * Called only for tokens whose signature and lifetime are valid.
+ */
+@FunctionalInterface
+public interface RevocationCheck {
+
+    RevocationCheck NONE = token -> false;
+
+    boolean isRevoked(VerifiedToken token);
+}
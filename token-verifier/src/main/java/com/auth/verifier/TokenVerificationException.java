@@ -0,0 +1,28 @@
+package com.auth.verifier;
+
+/**
+ * Thrown when a token is rejected. Rejections are routine, so no stack
+ * trace is captured.
+ */
+public class TokenVerificationException extends RuntimeException {
+
+    public enum Reason {
+        MALFORMED,
+        UNSUPPORTED_ALGORITHM,
+        INVALID_SIGNATURE,
+        EXPIRED,
+        NOT_YET_VALID,
+        REVOKED
+    }
+
+    private final Reason reason;
+
+    public TokenVerificationException(Reason reason, String message) {
+        super(message, null, false, false);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
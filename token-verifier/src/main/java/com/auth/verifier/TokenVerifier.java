@@ -0,0 +1,268 @@
+package com.auth.verifier;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Verifies tokens issued by auth-server (HMAC-SHA signed compact JWS) with
+ * no dependencies beyond the JDK. Thread-safe; create one per application.
+ *
+ * <pre>
+ * TokenVerifier verifier = TokenVerifier.builder()
+ *         .secret(jwtSecret)                  // same value as jwt.secret on the server
+ *         .clockSkew(Duration.ofSeconds(30))
+ *         .revocationCheck(token -&gt; denylist.contains(token.getSubject()))
+ *         .build();
+ *
+ * VerifiedToken token = verifier.verify(bearerToken);
+ * </pre>
+ */
+public final class TokenVerifier {
+
+    // Largest HMAC output (SHA-512)
+    private static final int MAX_SIGNATURE_LENGTH = 64;
+    // Guards the per-thread buffers against absurd inputs
+    private static final int MAX_TOKEN_LENGTH = 16 * 1024;
+
+    private final List<HmacKey> keys;
+    private final List<String> encodedHeaders;
+    private final long clockSkewMillis;
+    private final Clock clock;
+    private final RevocationCheck revocationCheck;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    private TokenVerifier(Builder builder) {
+        this.keys = List.copyOf(builder.keys);
+        this.clockSkewMillis = builder.clockSkew.toMillis();
+        this.clock = builder.clock;
+        this.revocationCheck = builder.revocationCheck;
+
+        // The exact headers JJWT writes, so the common case skips header parsing
+        List<String> headers = new ArrayList<>();
+        for (HmacKey key : keys) {
+            headers.add(Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    ("{\"alg\":\"" + key.getAlgorithm() + "\"}").getBytes(StandardCharsets.UTF_8)));
+        }
+        this.encodedHeaders = List.copyOf(headers);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Verify signature, lifetime and revocation, returning the token's claims
+     *
+     * @throws TokenVerificationException if the token is rejected
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            throw malformed("Token is empty or too long");
+        }
+
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw malformed("Token must have three parts");
+        }
+
+        Scratch buffers = scratch.get();
+        String algorithm = readAlgorithm(token, firstDot, buffers);
+        verifySignature(token, secondDot, algorithm, buffers);
+
+        int payloadLength = Base64Url.decodedLength(secondDot - firstDot - 1);
+        if (payloadLength < 0) {
+            throw malformed("Invalid payload encoding");
+        }
+        byte[] payload = buffers.payload(payloadLength);
+        if (!Base64Url.decode(token, firstDot + 1, secondDot, payload)) {
+            throw malformed("Invalid payload encoding");
+        }
+        CompactJson.Claims claims = CompactJson.readClaims(payload, payloadLength);
+
+        if (claims.expiration == CompactJson.ABSENT) {
+            throw malformed("Token has no expiration");
+        }
+        long now = clock.millis();
+        if (now - clockSkewMillis > claims.expiration * 1000) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.EXPIRED, "Token has expired");
+        }
+        if (claims.notBefore != CompactJson.ABSENT && now + clockSkewMillis < claims.notBefore * 1000) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.NOT_YET_VALID, "Token is not yet valid");
+        }
+
+        VerifiedToken verified = new VerifiedToken(claims.subject,
+                claims.issuedAt == CompactJson.ABSENT ? 0 : claims.issuedAt, claims.expiration);
+        if (revocationCheck.isRevoked(verified)) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.REVOKED, "Token has been revoked");
+        }
+        return verified;
+    }
+
+    /**
+     * Like verify, but returns null instead of throwing
+     */
+    public VerifiedToken verifyOrNull(String token) {
+        try {
+            return verify(token);
+        } catch (TokenVerificationException e) {
+            return null;
+        }
+    }
+
+    private String readAlgorithm(String token, int firstDot, Scratch buffers) {
+        for (int i = 0; i < encodedHeaders.size(); i++) {
+            String header = encodedHeaders.get(i);
+            if (header.length() == firstDot && token.startsWith(header)) {
+                return keys.get(i).getAlgorithm();
+            }
+        }
+
+        int headerLength = Base64Url.decodedLength(firstDot);
+        if (headerLength < 0) {
+            throw malformed("Invalid header encoding");
+        }
+        byte[] header = buffers.payload(headerLength);
+        if (!Base64Url.decode(token, 0, firstDot, header)) {
+            throw malformed("Invalid header encoding");
+        }
+        return CompactJson.readAlgorithm(header, headerLength);
+    }
+
+    private void verifySignature(String token, int secondDot, String algorithm, Scratch buffers) {
+        if (!hasKeyFor(algorithm)) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.UNSUPPORTED_ALGORITHM,
+                    "No key for algorithm " + algorithm);
+        }
+
+        int signatureChars = token.length() - secondDot - 1;
+        int signatureLength = Base64Url.decodedLength(signatureChars);
+        if (signatureLength <= 0 || signatureLength > MAX_SIGNATURE_LENGTH
+                || !Base64Url.decode(token, secondDot + 1, token.length(), buffers.signature)) {
+            throw new TokenVerificationException(TokenVerificationException.Reason.INVALID_SIGNATURE, "Invalid signature encoding");
+        }
+
+        // Signing input is the ASCII "header.payload" prefix of the token
+        byte[] input = buffers.input(secondDot);
+        for (int i = 0; i < secondDot; i++) {
+            input[i] = (byte) token.charAt(i);
+        }
+
+        for (HmacKey key : keys) {
+            if (!key.getAlgorithm().equals(algorithm)) {
+                continue;
+            }
+
+            Mac mac = key.mac();
+            if (mac.getMacLength() != signatureLength) {
+                continue;
+            }
+            mac.update(input, 0, secondDot);
+            try {
+                mac.doFinal(buffers.expected, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+            if (constantTimeEquals(buffers.expected, buffers.signature, signatureLength)) {
+                return;
+            }
+        }
+
+        throw new TokenVerificationException(TokenVerificationException.Reason.INVALID_SIGNATURE, "Signature does not match");
+    }
+
+    private boolean hasKeyFor(String algorithm) {
+        for (HmacKey key : keys) {
+            if (key.getAlgorithm().equals(algorithm)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean constantTimeEquals(byte[] a, byte[] b, int length) {
+        int diff = 0;
+        for (int i = 0; i < length; i++) {
+            diff |= a[i] ^ b[i];
+        }
+        return diff == 0;
+    }
+
+    private static TokenVerificationException malformed(String message) {
+        return new TokenVerificationException(TokenVerificationException.Reason.MALFORMED, message);
+    }
+
+    // Per-thread buffers reused across calls
+    private static final class Scratch {
+        private final byte[] signature = new byte[MAX_SIGNATURE_LENGTH];
+        private final byte[] expected = new byte[MAX_SIGNATURE_LENGTH];
+        private byte[] input = new byte[512];
+        private byte[] payload = new byte[512];
+
+        private byte[] input(int length) {
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+            return input;
+        }
+
+        private byte[] payload(int length) {
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            return payload;
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<HmacKey> keys = new ArrayList<>();
+        private Duration clockSkew = Duration.ZERO;
+        private Clock clock = Clock.systemUTC();
+        private RevocationCheck revocationCheck = RevocationCheck.NONE;
+
+        private Builder() {
+        }
+
+        /**
+         * Add a shared secret. Call again with the previous secret during a key rotation.
+         */
+        public Builder secret(String secret) {
+            keys.add(new HmacKey(Objects.requireNonNull(secret, "secret")));
+            return this;
+        }
+
+        public Builder clockSkew(Duration clockSkew) {
+            if (clockSkew.isNegative()) {
+                throw new IllegalArgumentException("Clock skew must not be negative");
+            }
+            this.clockSkew = clockSkew;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = Objects.requireNonNull(clock, "clock");
+            return this;
+        }
+
+        public Builder revocationCheck(RevocationCheck revocationCheck) {
+            this.revocationCheck = Objects.requireNonNull(revocationCheck, "revocationCheck");
+            return this;
+        }
+
+        public TokenVerifier build() {
+            if (keys.isEmpty()) {
+                throw new IllegalStateException("At least one secret is required");
+            }
+            return new TokenVerifier(this);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.auth.verifier;
+
+/**
+ * Claims of a token that passed verification. Times are epoch seconds;
+ * issuedAt is 0 when the token has no iat claim.
+ */
+public final class VerifiedToken {
+
+    private final String subject;
+    private final long issuedAt;
+    private final long expiresAt;
+
+    VerifiedToken(String subject, long issuedAt, long expiresAt) {
+        this.subject = subject;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "VerifiedToken{subject='" + subject + "', issuedAt=" + issuedAt + ", expiresAt=" + expiresAt + "}";
+    }
+}